@@ -0,0 +1,100 @@
+package com.game.benchmarks;
+
+import com.game.config.AppConfig;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exception.BadRequestException;
+import com.game.service.PlayerService;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Starts the application context on the dev profile (embedded H2) and generates players for it.
+ * Generation is seeded, so every run and every build benchmarks the same data.
+ */
+final class BenchmarkData {
+
+    private static final String[] SYLLABLES = {"ар", "ни", "ус", "кра", "шш", "ол", "ве", "ри", "та", "мо", "эль", "гор"};
+    private static final long YEAR_2000 = 946684800000L;
+    private static final long YEARS_100 = 3155760000000L;
+
+    private BenchmarkData() {
+    }
+
+    static AnnotationConfigWebApplicationContext startContext() {
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class, WebConfig.class);
+        context.refresh();
+        return context;
+    }
+
+    static void insertPlayers(PlayerService playerService, int count) throws BadRequestException {
+        Random random = new Random(42);
+        List<Player> batch = new ArrayList<>(1000);
+        for (int i = 0; i < count; i++) {
+            Player player = randomPlayer(random);
+            playerService.validateNewPlayer(player);
+            batch.add(player);
+            if (batch.size() == 1000) {
+                playerService.insertValidPlayers(batch);
+                batch = new ArrayList<>(1000);
+            }
+        }
+        if (!batch.isEmpty()) {
+            playerService.insertValidPlayers(batch);
+        }
+    }
+
+    static List<Player> players(int count) throws BadRequestException {
+        Random random = new Random(42);
+        PlayerService validator = validator();
+        List<Player> players = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Player player = randomPlayer(random);
+            player.setId((long) i + 1);
+            validator.validateNewPlayer(player);
+            players.add(player);
+        }
+        return players;
+    }
+
+    // validateNewPlayer touches none of the service's collaborators
+    static PlayerService validator() {
+        return new PlayerService(null, null, null, null, null, 0, 0, 0);
+    }
+
+    static Player randomPlayer(Random random) {
+        Player player = new Player();
+        player.setName(word(random, 12));
+        player.setTitle(word(random, 30));
+        player.setRace(Race.values()[random.nextInt(Race.values().length)]);
+        player.setProfession(Profession.values()[random.nextInt(Profession.values().length)]);
+        player.setBirthday(new Date(YEAR_2000 + (long) (random.nextDouble() * YEARS_100)));
+        player.setBanned(random.nextInt(10) == 0);
+        player.setExperience(random.nextInt(10000001));
+        return player;
+    }
+
+    private static String word(Random random, int maxLength) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            String syllable = SYLLABLES[random.nextInt(SYLLABLES.length)];
+            if (word.length() + syllable.length() > maxLength) {
+                break;
+            }
+            word.append(syllable);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.game.benchmarks;
+
+import com.game.entity.Player;
+import com.game.exception.BadRequestException;
+import com.game.service.PlayerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PlayerService.validateNewPlayer: the field checks, the birthday year conversion and the level math,
+ * for an accepted player and for a rejected one (which pays for the exception).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayerServiceBenchmark {
+
+    private PlayerService service;
+    private Player valid;
+    private Player invalid;
+
+    @Setup
+    public void setUp() {
+        service = BenchmarkData.validator();
+        Random random = new Random(42);
+        valid = BenchmarkData.randomPlayer(random);
+        invalid = BenchmarkData.randomPlayer(random);
+        invalid.setExperience(-1);
+    }
+
+    @Benchmark
+    public Integer validateAcceptedPlayer() throws BadRequestException {
+        service.validateNewPlayer(valid);
+        return valid.getUntilNextLevel();
+    }
+
+    @Benchmark
+    public Object validateRejectedPlayer() {
+        try {
+            service.validateNewPlayer(invalid);
+            return invalid;
+        } catch (BadRequestException e) {
+            return e;
+        }
+    }
+}
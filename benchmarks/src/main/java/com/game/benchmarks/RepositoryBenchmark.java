@@ -0,0 +1,144 @@
+package com.game.benchmarks;
+
+import com.game.controller.PlayerField;
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import com.game.service.PlayerService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CustomRepoImpl list and count queries against H2 for representative filter shapes, either from JPQL
+ * precompiled per shape (player.query.precompiled=true) or from a criteria query built on every call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RepositoryBenchmark {
+
+    @Param({"10000"})
+    public int players;
+
+    @Param({"none", "name", "race", "race_profession_banned", "ranges", "all"})
+    public String shape;
+
+    @Param({"ID", "LEVEL"})
+    public PlayerOrder order;
+
+    @Param({"true", "false"})
+    public boolean precompiled;
+
+    private AnnotationConfigWebApplicationContext context;
+    private PlayerRepository repository;
+    private Filter filter;
+    private final Set<PlayerField> tableFields = EnumSet.of(PlayerField.ID, PlayerField.NAME, PlayerField.LEVEL);
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        System.setProperty("player.query.precompiled", String.valueOf(precompiled));
+        context = BenchmarkData.startContext();
+        repository = context.getBean(PlayerRepository.class);
+        BenchmarkData.insertPlayers(context.getBean(PlayerService.class), players);
+        filter = Filter.of(shape);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Player> getPlayers() {
+        return repository.getPlayers(filter.name, null, filter.race, filter.profession, filter.after, filter.before,
+                filter.banned, filter.minExperience, filter.maxExperience, filter.minLevel, filter.maxLevel, order, 0, 20);
+    }
+
+    // the fields=id,name,level projection against getPlayers above
+    @Benchmark
+    public List<Map<String, Object>> getPlayerFields() {
+        return repository.getPlayerFields(filter.name, null, filter.race, filter.profession, filter.after, filter.before,
+                filter.banned, filter.minExperience, filter.maxExperience, filter.minLevel, filter.maxLevel, order, 0, 20, tableFields);
+    }
+
+    @Benchmark
+    public Long getPlayersCount() {
+        return repository.getPlayersCount(filter.name, null, filter.race, filter.profession, filter.after, filter.before,
+                filter.banned, filter.minExperience, filter.maxExperience, filter.minLevel, filter.maxLevel);
+    }
+
+    private static final class Filter {
+        String name;
+        Race race;
+        Profession profession;
+        Long after;
+        Long before;
+        Boolean banned;
+        Integer minExperience;
+        Integer maxExperience;
+        Integer minLevel;
+        Integer maxLevel;
+
+        static Filter of(String shape) {
+            Filter filter = new Filter();
+            switch (shape) {
+                case "none":
+                    break;
+                case "name":
+                    filter.name = "ар";
+                    break;
+                case "race":
+                    filter.race = Race.ORC;
+                    break;
+                case "race_profession_banned":
+                    filter.race = Race.ORC;
+                    filter.profession = Profession.WARRIOR;
+                    filter.banned = false;
+                    break;
+                case "ranges":
+                    filter.after = 1104537600000L;
+                    filter.before = 32503680000000L;
+                    filter.minExperience = 1000;
+                    filter.maxExperience = 5000000;
+                    filter.minLevel = 5;
+                    filter.maxLevel = 60;
+                    break;
+                case "all":
+                    filter.name = "ар";
+                    filter.race = Race.ORC;
+                    filter.profession = Profession.WARRIOR;
+                    filter.banned = false;
+                    filter.after = 1104537600000L;
+                    filter.minExperience = 1000;
+                    filter.maxLevel = 60;
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown filter shape " + shape);
+            }
+            return filter;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.game.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.game.config.WebConfig;
+import com.game.entity.Player;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson serialization of List&lt;Player&gt; with the ObjectMapper the REST converters use.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"3", "100", "1000"})
+    public int size;
+
+    private ObjectWriter writer;
+    private List<Player> players;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper mapper = WebConfig.restObjectMapper();
+        writer = mapper.writerFor(mapper.getTypeFactory().constructCollectionType(List.class, Player.class));
+        players = BenchmarkData.players(size);
+    }
+
+    @Benchmark
+    public byte[] serializePlayers() throws Exception {
+        return writer.writeValueAsBytes(players);
+    }
+}
@@ -0,0 +1,28 @@
+-- Schema for the dev profile's embedded H2 database; BenchmarkData fills it with generated players.
+DROP TABLE IF EXISTS player;
+DROP TABLE IF EXISTS player_changes;
+
+CREATE TABLE player
+(
+    id             BIGINT(20)  NOT NULL AUTO_INCREMENT,
+    name           VARCHAR_IGNORECASE(12) NULL,
+    title          VARCHAR_IGNORECASE(30) NULL,
+    race           VARCHAR(20) NULL,
+    profession     VARCHAR(20) NULL,
+    birthday       DATE        NULL,
+    banned         BIT(1)      NULL,
+    experience     INT(10)     NULL,
+    level          INT(3)      NULL,
+    untilNextLevel INT(10)     NULL,
+    version        BIGINT      NOT NULL DEFAULT 0,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE player_changes
+(
+    id      INT    NOT NULL,
+    counter BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO player_changes(id, counter) VALUES (1, 0);
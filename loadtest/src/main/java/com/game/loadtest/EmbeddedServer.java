@@ -0,0 +1,59 @@
+package com.game.loadtest;
+
+import com.game.config.AppConfig;
+import com.game.config.WebConfig;
+import org.apache.catalina.Context;
+import org.apache.catalina.Wrapper;
+import org.apache.catalina.connector.Connector;
+import org.apache.catalina.startup.Tomcat;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.DispatcherServlet;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * The application on embedded Tomcat with the dev profile, so it runs against an in-memory H2 database
+ * and needs nothing but this JVM.
+ */
+final class EmbeddedServer implements AutoCloseable {
+
+    private final Tomcat tomcat;
+    private final int port;
+
+    private EmbeddedServer(Tomcat tomcat, int port) {
+        this.tomcat = tomcat;
+        this.port = port;
+    }
+
+    static EmbeddedServer start(int port) throws Exception {
+        Path baseDir = Files.createTempDirectory("rpg-loadtest");
+        Tomcat tomcat = new Tomcat();
+        tomcat.setBaseDir(baseDir.toString());
+        tomcat.setPort(port);
+        Connector connector = tomcat.getConnector();
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.getEnvironment().setActiveProfiles("dev");
+        context.register(AppConfig.class, WebConfig.class);
+
+        Context servletContext = tomcat.addContext("", baseDir.toString());
+        Wrapper dispatcher = Tomcat.addServlet(servletContext, "dispatcher", new DispatcherServlet(context));
+        dispatcher.setLoadOnStartup(1);
+        dispatcher.setAsyncSupported(true);
+        servletContext.addServletMappingDecoded("/", "dispatcher");
+
+        tomcat.start();
+        return new EmbeddedServer(tomcat, connector.getLocalPort());
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + port;
+    }
+
+    @Override
+    public void close() throws Exception {
+        tomcat.stop();
+        tomcat.destroy();
+    }
+}
@@ -0,0 +1,14 @@
+package com.game.loadtest;
+
+public enum Endpoint {
+    LIST,
+    COUNT,
+    GET,
+    CREATE,
+    UPDATE,
+    DELETE;
+
+    String label() {
+        return name().toLowerCase();
+    }
+}
@@ -0,0 +1,113 @@
+package com.game.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms (microseconds) and error counts per endpoint plus their union.
+ * Written as a console table, one HdrHistogram percentile distribution (.hgrm, milliseconds) per endpoint
+ * and a summary.json for comparing runs.
+ */
+final class LoadReport {
+
+    private final Map<String, Histogram> histograms = new LinkedHashMap<>();
+    private final Map<String, Long> errors = new LinkedHashMap<>();
+    private final long durationSeconds;
+    private final double rate;
+    private final Mix mix;
+    private final long maxSchedulingLagNanos;
+
+    private LoadReport(long durationSeconds, double rate, Mix mix, long maxSchedulingLagNanos) {
+        this.durationSeconds = durationSeconds;
+        this.rate = rate;
+        this.mix = mix;
+        this.maxSchedulingLagNanos = maxSchedulingLagNanos;
+    }
+
+    static LoadReport of(Map<Endpoint, Recorder> latencies, Map<Endpoint, LongAdder> errors,
+                         long durationSeconds, double rate, Mix mix, long maxSchedulingLagNanos) {
+        LoadReport report = new LoadReport(durationSeconds, rate, mix, maxSchedulingLagNanos);
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Endpoint endpoint : Endpoint.values()) {
+            Histogram histogram = latencies.get(endpoint).getIntervalHistogram();
+            if (histogram.getTotalCount() == 0) {
+                continue;
+            }
+            long failed = errors.get(endpoint).sum();
+            report.histograms.put(endpoint.label(), histogram);
+            report.errors.put(endpoint.label(), failed);
+            all.add(histogram);
+            allErrors += failed;
+        }
+        report.histograms.put("all", all);
+        report.errors.put("all", allErrors);
+        return report;
+    }
+
+    void print(PrintStream out) {
+        out.printf("offered %.0f req/s for %d s, max scheduling lag %.3f ms%n", rate, durationSeconds,
+                maxSchedulingLagNanos / 1_000_000.0);
+        out.printf("%-8s %10s %8s %10s %10s %10s %10s %10s %10s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            out.printf("%-8s %10d %8d %10.1f %10.3f %10.3f %10.3f %10.3f %10.3f%n",
+                    entry.getKey(), histogram.getTotalCount(), errors.get(entry.getKey()),
+                    histogram.getTotalCount() / (double) durationSeconds,
+                    millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(90)),
+                    millis(histogram.getValueAtPercentile(99)), millis(histogram.getValueAtPercentile(99.9)),
+                    millis(histogram.getMaxValue()));
+        }
+    }
+
+    void write(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("offeredRate", rate);
+        summary.put("durationSeconds", durationSeconds);
+        summary.put("maxSchedulingLagMillis", maxSchedulingLagNanos / 1_000_000.0);
+        Map<String, Integer> weights = new LinkedHashMap<>();
+        mix.weights().forEach((endpoint, weight) -> weights.put(endpoint.label(), weight));
+        summary.put("mix", weights);
+
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", histogram.getTotalCount());
+            stats.put("errors", errors.get(entry.getKey()));
+            stats.put("throughput", histogram.getTotalCount() / (double) durationSeconds);
+            stats.put("meanMillis", histogram.getMean() / 1000.0);
+            stats.put("p50Millis", millis(histogram.getValueAtPercentile(50)));
+            stats.put("p90Millis", millis(histogram.getValueAtPercentile(90)));
+            stats.put("p99Millis", millis(histogram.getValueAtPercentile(99)));
+            stats.put("p999Millis", millis(histogram.getValueAtPercentile(99.9)));
+            stats.put("maxMillis", millis(histogram.getMaxValue()));
+            endpoints.put(entry.getKey(), stats);
+
+            try (PrintStream hgrm = new PrintStream(Files.newOutputStream(directory.resolve(entry.getKey() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(hgrm, 1000.0);
+            }
+        }
+        summary.put("endpoints", endpoints);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(directory.resolve("summary.json").toFile(), summary);
+    }
+
+    private static double millis(long micros) {
+        return micros / (double) TimeUnit.MILLISECONDS.toMicros(1);
+    }
+}
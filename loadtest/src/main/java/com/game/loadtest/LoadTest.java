@@ -0,0 +1,61 @@
+package com.game.loadtest;
+
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Entry point. Options are key=value arguments:
+ * <ul>
+ *     <li>rate - offered requests per second (default 200)</li>
+ *     <li>duration - measured seconds (default 60), preceded by warmup seconds (default 10)</li>
+ *     <li>mix - endpoint weights (default list:40,count:20,get:20,create:10,update:8,delete:2)</li>
+ *     <li>threads - concurrent requests the client can have in flight (default 64)</li>
+ *     <li>players - players seeded before the run (default 10000)</li>
+ *     <li>url - an already running server; without it the application starts in-process on H2</li>
+ *     <li>port - port of the in-process server (default 0, any free port)</li>
+ *     <li>out - report directory (default loadtest-results)</li>
+ * </ul>
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        double rate = Double.parseDouble(options.getOrDefault("rate", "200"));
+        long duration = Long.parseLong(options.getOrDefault("duration", "60"));
+        long warmup = Long.parseLong(options.getOrDefault("warmup", "10"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", "64"));
+        int players = Integer.parseInt(options.getOrDefault("players", "10000"));
+        Mix mix = Mix.parse(options.getOrDefault("mix", "list:40,count:20,get:20,create:10,update:8,delete:2"));
+
+        System.setProperty("http.maxConnections", String.valueOf(threads));
+        EmbeddedServer server = options.containsKey("url") ? null : EmbeddedServer.start(Integer.parseInt(options.getOrDefault("port", "0")));
+        try {
+            String baseUrl = server == null ? options.get("url") : server.baseUrl();
+            Workload workload = new Workload(new ApiClient(baseUrl));
+            System.out.printf("seeding %d players on %s%n", players, baseUrl);
+            workload.seed(players);
+
+            System.out.printf("offering %.0f req/s: %d s warmup, %d s measured%n", rate, warmup, duration);
+            LoadReport report = new OpenModelDriver(workload, mix, rate, threads).run(warmup, duration);
+            report.print(System.out);
+            report.write(Paths.get(options.getOrDefault("out", "loadtest-results")));
+        } finally {
+            if (server != null) {
+                server.close();
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("options are key=value, got " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+}
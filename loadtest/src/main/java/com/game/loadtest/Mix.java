@@ -0,0 +1,59 @@
+package com.game.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Weighted request mix parsed from "list:40,count:20,...". Endpoints left out get no traffic.
+ */
+final class Mix {
+
+    private final Map<Endpoint, Integer> weights;
+    private final Endpoint[] endpoints;
+    private final int[] cumulative;
+
+    private Mix(Map<Endpoint, Integer> weights) {
+        this.weights = weights;
+        this.endpoints = weights.keySet().toArray(new Endpoint[0]);
+        this.cumulative = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += weights.get(endpoints[i]);
+            cumulative[i] = total;
+        }
+        if (total == 0) {
+            throw new IllegalArgumentException("request mix has no weight");
+        }
+    }
+
+    static Mix parse(String spec) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        for (String part : spec.split(",")) {
+            String[] pair = part.trim().split(":");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("mix entry must be endpoint:weight, got " + part);
+            }
+            int weight = Integer.parseInt(pair[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("negative weight for " + pair[0]);
+            }
+            weights.put(Endpoint.valueOf(pair[0].trim().toUpperCase()), weight);
+        }
+        return new Mix(weights);
+    }
+
+    Endpoint pick(Random random) {
+        int point = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (point < cumulative[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    Map<Endpoint, Integer> weights() {
+        return weights;
+    }
+}
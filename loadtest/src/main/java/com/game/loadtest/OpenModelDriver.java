@@ -0,0 +1,95 @@
+package com.game.loadtest;
+
+import org.HdrHistogram.Recorder;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Constant arrival rate load: request i is due at start + i / rate no matter how earlier requests fared,
+ * and its latency is measured from that due time. A slow server therefore shows up as queueing delay in
+ * the histograms instead of silently lowering the offered load (coordinated omission).
+ */
+final class OpenModelDriver {
+
+    private final Workload workload;
+    private final Mix mix;
+    private final double rate;
+    private final int threads;
+    private final Map<Endpoint, Recorder> latencies = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, LongAdder> errors = new EnumMap<>(Endpoint.class);
+    private final AtomicLong maxSchedulingLagNanos = new AtomicLong();
+
+    OpenModelDriver(Workload workload, Mix mix, double rate, int threads) {
+        this.workload = workload;
+        this.mix = mix;
+        this.rate = rate;
+        this.threads = threads;
+        for (Endpoint endpoint : Endpoint.values()) {
+            latencies.put(endpoint, new Recorder(3));
+            errors.put(endpoint, new LongAdder());
+        }
+    }
+
+    /**
+     * Offers load for warmup + duration seconds; only requests due after the warmup are recorded.
+     */
+    LoadReport run(long warmupSeconds, long durationSeconds) throws InterruptedException {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), task -> {
+            Thread thread = new Thread(task, "load-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(durationSeconds);
+        for (long i = 0; ; i++) {
+            long due = start + i * intervalNanos;
+            if (due >= end) {
+                break;
+            }
+            long now;
+            while ((now = System.nanoTime()) < due) {
+                LockSupport.parkNanos(due - now);
+            }
+            maxSchedulingLagNanos.accumulateAndGet(now - due, Math::max);
+
+            Endpoint endpoint = mix.pick(ThreadLocalRandom.current());
+            boolean measured = due >= measureFrom;
+            workers.execute(() -> call(endpoint, due, measured));
+        }
+
+        workers.shutdown();
+        if (!workers.awaitTermination(Math.max(60, durationSeconds), TimeUnit.SECONDS)) {
+            workers.shutdownNow();
+        }
+        return LoadReport.of(latencies, errors, durationSeconds, rate, mix, maxSchedulingLagNanos.get());
+    }
+
+    private void call(Endpoint endpoint, long due, boolean measured) {
+        boolean success;
+        try {
+            success = workload.call(endpoint).isSuccess();
+        } catch (Exception e) {
+            success = false;
+        }
+        if (measured) {
+            latencies.get(endpoint).recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - due)));
+            if (!success) {
+                errors.get(endpoint).increment();
+            }
+        }
+    }
+}
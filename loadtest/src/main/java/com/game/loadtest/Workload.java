@@ -0,0 +1,117 @@
+package com.game.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds and sends one request per endpoint. Reads and updates target the stable part of the seeded
+ * players; deletes consume players created by the run or set aside while seeding, so the data set
+ * neither drains nor runs out of rows to delete.
+ */
+final class Workload {
+
+    private static final String[] ORDERS = {"ID", "NAME", "EXPERIENCE", "BIRTHDAY", "LEVEL"};
+    private static final String[] SYLLABLES = {"ar", "ni", "us", "kra", "sh", "ol", "ve", "ri", "ta", "mo", "el", "gor"};
+    private static final long YEAR_2000 = 946684800000L;
+    private static final long YEARS_100 = 3155760000000L;
+
+    private final ApiClient client;
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final ConcurrentLinkedQueue<Long> deletable = new ConcurrentLinkedQueue<>();
+    private long[] stableIds = new long[0];
+
+    Workload(ApiClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Creates players through POST /rest/players/batch; the last fifth is kept for deletes.
+     */
+    void seed(int players) throws IOException {
+        Random random = new Random(42);
+        List<Long> ids = new ArrayList<>(players);
+        for (int from = 0; from < players; from += 1000) {
+            StringBuilder body = new StringBuilder("[");
+            for (int i = from; i < Math.min(from + 1000, players); i++) {
+                body.append(i == from ? "" : ",").append(playerJson(random));
+            }
+            ApiClient.Response response = client.send("POST", "/rest/players/batch", body.append(']').toString());
+            if (!response.isSuccess()) {
+                throw new IOException("seeding failed with HTTP " + response.status);
+            }
+            for (JsonNode result : mapper.readTree(response.body)) {
+                ids.add(result.get("player").get("id").asLong());
+            }
+        }
+        int stable = Math.max(1, ids.size() * 4 / 5);
+        stableIds = ids.subList(0, stable).stream().mapToLong(Long::longValue).toArray();
+        deletable.addAll(ids.subList(stable, ids.size()));
+    }
+
+    ApiClient.Response call(Endpoint endpoint) throws IOException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        switch (endpoint) {
+            case LIST:
+                return client.send("GET", "/rest/players?order=" + ORDERS[random.nextInt(ORDERS.length)]
+                        + "&pageNumber=" + random.nextInt(10) + "&pageSize=20"
+                        + (random.nextBoolean() ? "&race=" + randomRace(random) : ""), null);
+            case COUNT:
+                return client.send("GET", "/rest/players/count?race=" + randomRace(random) + "&banned=" + random.nextBoolean(), null);
+            case GET:
+                return client.send("GET", "/rest/players/" + stableId(random), null);
+            case CREATE:
+                ApiClient.Response created = client.send("POST", "/rest/players/", playerJson(random));
+                if (created.isSuccess()) {
+                    deletable.add(mapper.readTree(created.body).get("id").asLong());
+                }
+                return created;
+            case UPDATE:
+                return client.send("POST", "/rest/players/" + stableId(random), "{\"experience\": " + random.nextInt(10000001) + "}");
+            case DELETE:
+                Long id = deletable.poll();
+                return client.send("DELETE", "/rest/players/" + (id == null ? Long.MAX_VALUE : id), null);
+            default:
+                throw new IllegalArgumentException(endpoint.name());
+        }
+    }
+
+    private long stableId(Random random) {
+        return stableIds[random.nextInt(stableIds.length)];
+    }
+
+    private static String randomRace(Random random) {
+        return Race.values()[random.nextInt(Race.values().length)].name();
+    }
+
+    private static String playerJson(Random random) {
+        return "{\"name\": \"" + word(random, 12) + "\", \"title\": \"" + word(random, 30) + "\""
+                + ", \"race\": \"" + randomRace(random) + "\""
+                + ", \"profession\": \"" + Profession.values()[random.nextInt(Profession.values().length)].name() + "\""
+                + ", \"birthday\": " + (YEAR_2000 + (long) (random.nextDouble() * YEARS_100))
+                + ", \"banned\": " + (random.nextInt(10) == 0)
+                + ", \"experience\": " + random.nextInt(10000001) + "}";
+    }
+
+    private static String word(Random random, int maxLength) {
+        StringBuilder word = new StringBuilder();
+        int syllables = 2 + random.nextInt(3);
+        for (int i = 0; i < syllables; i++) {
+            String syllable = SYLLABLES[random.nextInt(SYLLABLES.length)];
+            if (word.length() + syllable.length() > maxLength) {
+                break;
+            }
+            word.append(syllable);
+        }
+        word.setCharAt(0, Character.toUpperCase(word.charAt(0)));
+        return word.toString();
+    }
+}
@@ -1,12 +1,20 @@
 package com.game.config;
 
+import com.game.datasource.ReplicaRoutingDataSource;
+import com.game.metrics.PoolMetrics;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.dao.annotation.PersistenceExceptionTranslationPostProcessor;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.core.env.Environment;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.JpaVendorAdapter;
@@ -17,6 +25,8 @@ import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Properties;
 
 import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
@@ -25,12 +35,24 @@ import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.
 @EnableTransactionManagement
 @ComponentScan("com.game")
 @EnableJpaRepositories(basePackages = "com.game.repository")
+@PropertySource("classpath:application.properties")
+@PropertySource(value = "file:${db.credentials-file:/etc/rpg/db.properties}", ignoreResourceNotFound = true)
 public class AppConfig {
 
+    private final Environment env;
+
+    @Autowired
+    public AppConfig(Environment env) {
+        this.env = env;
+    }
+
     @Bean
-    public LocalContainerEntityManagerFactoryBean entityManagerFactory() {
+    public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource, ObjectProvider<Flyway> flyway) {
+        // profiles with schema migrations bring the schema up to date before Hibernate starts
+        flyway.getIfAvailable();
+
         LocalContainerEntityManagerFactoryBean em = new LocalContainerEntityManagerFactoryBean();
-        em.setDataSource(dataSource());
+        em.setDataSource(dataSource);
         em.setPackagesToScan("com.game.entity");
 
         JpaVendorAdapter vendorAdapter = new HibernateJpaVendorAdapter();
@@ -40,21 +62,81 @@ public class AppConfig {
         return em;
     }
 
+    // with db.replicas.urls set, read-only transactions are routed to the replicas
+    @Profile("prod")
+    @Bean(destroyMethod = "close")
+    public DataSource dataSource(PoolMetrics poolMetrics) {
+        String poolName = env.getProperty("db.pool.name", "rpg");
+        DataSource primary = pool(poolName, env.getRequiredProperty("db.url"), env.getRequiredProperty("db.username"),
+                env.getRequiredProperty("db.password"), poolMetrics);
+
+        String[] replicaUrls = env.getProperty("db.replicas.urls", "").trim().split("\\s*,\\s*");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (String url : replicaUrls) {
+            if (!url.isEmpty()) {
+                String name = poolName + "-replica-" + (replicas.size() + 1);
+                replicas.put(name, pool(name, url, env.getProperty("db.replicas.username", env.getRequiredProperty("db.username")),
+                        env.getProperty("db.replicas.password", env.getRequiredProperty("db.password")), poolMetrics));
+            }
+        }
+        return replicas.isEmpty() ? primary : replicaRouting(primary, replicas);
+    }
+
+    private HikariDataSource pool(String poolName, String url, String username, String password, PoolMetrics poolMetrics) {
+        HikariConfig config = new HikariConfig();
+        config.setPoolName(poolName);
+        config.setDriverClassName(env.getRequiredProperty("db.driver"));
+        config.setJdbcUrl(url);
+        config.setUsername(username);
+        config.setPassword(password);
+        config.setMinimumIdle(env.getProperty("db.pool.minimum-idle", Integer.class, 2));
+        config.setMaximumPoolSize(env.getProperty("db.pool.maximum-size", Integer.class, 10));
+        config.setConnectionTimeout(env.getProperty("db.pool.acquire-timeout-ms", Long.class, 3000L));
+        config.setValidationTimeout(env.getProperty("db.pool.validation-timeout-ms", Long.class, 1000L));
+        config.setIdleTimeout(env.getProperty("db.pool.idle-timeout-ms", Long.class, 600000L));
+        config.setMaxLifetime(env.getProperty("db.pool.max-lifetime-ms", Long.class, 1800000L));
+        config.setLeakDetectionThreshold(env.getProperty("db.pool.leak-detection-threshold-ms", Long.class, 0L));
+        String testQuery = env.getProperty("db.pool.validation-query", "");
+        if (!testQuery.isEmpty()) {
+            config.setConnectionTestQuery(testQuery);
+        }
+        config.setRegisterMbeans(env.getProperty("db.pool.register-mbeans", Boolean.class, false));
+        config.setMetricsTrackerFactory(poolMetrics);
+        return new HikariDataSource(config);
+    }
+
     @Profile("prod")
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
-        dataSource.setDriverClassName("com.mysql.cj.jdbc.Driver");
-        dataSource.setUrl("jdbc:mysql://localhost:3306/rpg?serverTimezone=UTC&characterEncoding=UTF-8");
-        dataSource.setUsername("root");
-        dataSource.setPassword("root");
-        return dataSource;
+    public Flyway flyway(DataSource dataSource) {
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        if (env.getProperty("db.migration.enabled", Boolean.class, true)) {
+            flyway.migrate();
+        }
+        return flyway;
     }
 
+    // db.dev.replicas=N adds N more embedded databases, loaded with the same script, as read replicas
     @Profile("dev")
     @Bean(name = "dataSource")
     public DataSource dataSourceForTests() {
+        DataSource primary = embeddedDatabase();
+        int replicaCount = env.getProperty("db.dev.replicas", Integer.class, 0);
+        if (replicaCount == 0) {
+            return primary;
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 1; i <= replicaCount; i++) {
+            replicas.put("replica-" + i, embeddedDatabase());
+        }
+        return replicaRouting(primary, replicas);
+    }
 
+    private DataSource embeddedDatabase() {
         return new EmbeddedDatabaseBuilder()
                 .generateUniqueName(true)
                 .setType(H2)
@@ -64,6 +146,14 @@ public class AppConfig {
                 .build();
     }
 
+    private DataSource replicaRouting(DataSource primary, Map<String, DataSource> replicas) {
+        return ReplicaRoutingDataSource.create(primary, replicas,
+                env.getProperty("db.replicas.lag-query", ""),
+                env.getProperty("db.replicas.max-lag-seconds", Long.class, 5L),
+                env.getProperty("db.replicas.check-interval-ms", Long.class, 5000L),
+                env.getProperty("db.replicas.read-your-writes-ms", Long.class, 5000L));
+    }
+
     @Bean
     public PlatformTransactionManager transactionManager(EntityManagerFactory emf) {
         JpaTransactionManager transactionManager = new JpaTransactionManager();
@@ -1,7 +1,9 @@
 package com.game.config;
 
+import com.game.metrics.ServerTimingFilter;
 import org.springframework.web.servlet.support.AbstractAnnotationConfigDispatcherServletInitializer;
 
+import javax.servlet.Filter;
 import javax.servlet.ServletContext;
 import javax.servlet.ServletException;
 
@@ -28,4 +30,9 @@ public class MyWebAppInit extends AbstractAnnotationConfigDispatcherServletIniti
         return new String[]{"/"};
     }
 
+    @Override
+    protected Filter[] getServletFilters() {
+        return new Filter[]{new ServerTimingFilter()};
+    }
+
 }
\ No newline at end of file
@@ -2,26 +2,49 @@ package com.game.config;
 
 import com.fasterxml.jackson.annotation.JsonAutoDetect;
 import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.datasource.ReadYourWritesInterceptor;
+import com.game.metrics.MetricsInterceptor;
+import com.game.metrics.RequestMetrics;
+import com.game.metrics.TimingJsonHttpMessageConverter;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.converter.HttpMessageConverter;
-import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.web.servlet.ViewResolver;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
 import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.ViewControllerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 import org.springframework.web.servlet.view.InternalResourceViewResolver;
 import org.springframework.web.servlet.view.JstlView;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 @EnableWebMvc
 @ComponentScan("com.game")
 public class WebConfig implements WebMvcConfigurer {
 
+    private final RequestMetrics requestMetrics;
+    private final MetricsInterceptor metricsInterceptor;
+    private final ReadYourWritesInterceptor readYourWritesInterceptor;
+
+    @Autowired
+    public WebConfig(RequestMetrics requestMetrics, MetricsInterceptor metricsInterceptor,
+                     ReadYourWritesInterceptor readYourWritesInterceptor) {
+        this.requestMetrics = requestMetrics;
+        this.metricsInterceptor = metricsInterceptor;
+        this.readYourWritesInterceptor = readYourWritesInterceptor;
+    }
 
     @Bean
     public ViewResolver internalResourceViewResolver() {
@@ -42,11 +65,44 @@ public class WebConfig implements WebMvcConfigurer {
         registry.addResourceHandler("/resources/**").addResourceLocations("/resources/");
     }
 
+    @Bean
+    public ObjectMapper objectMapper() {
+        return restObjectMapper();
+    }
+
+    public static ObjectMapper restObjectMapper() {
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        mapper.setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
+        mapper.setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
+        return mapper;
+    }
+
+    // runs StreamingResponseBody exports off the request thread
+    @Bean(destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor streamingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("stream-");
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(8);
+        executor.setQueueCapacity(64);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(streamingExecutor());
+        configurer.setDefaultTimeout(TimeUnit.MINUTES.toMillis(30));
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(metricsInterceptor).addPathPatterns("/rest/**");
+        registry.addInterceptor(readYourWritesInterceptor).addPathPatterns("/rest/**");
+    }
+
     @Override
     public void configureMessageConverters(List<HttpMessageConverter<?>> converters) {
-        MappingJackson2HttpMessageConverter converter = new MappingJackson2HttpMessageConverter();
-        converter.getObjectMapper().setVisibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE);
-        converter.getObjectMapper().setVisibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY);
-        converters.add(converter);
+        converters.add(new StringHttpMessageConverter(StandardCharsets.UTF_8));
+        converters.add(new TimingJsonHttpMessageConverter(objectMapper(), requestMetrics));
     }
 }
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.game.controller;
+
+import com.game.datasource.DbBulkhead;
+import com.game.datasource.ReplicaRoutingDataSource;
+import com.game.index.PlayerColumnStore;
+import com.game.metrics.PoolMetrics;
+import com.game.metrics.RequestMetrics;
+import com.game.metrics.SqlStatementStats;
+import com.game.repository.SchemaVerifier;
+import com.game.service.ExperienceIngestService;
+import com.game.service.PlayerChangeCounter;
+import com.game.service.PlayerEntityCache;
+import com.game.service.PlayerQueryCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/rest/admin/")
+public class AdminRestApi {
+
+    private final PlayerQueryCache queryCache;
+    private final PlayerEntityCache entityCache;
+    private final PlayerColumnStore columnStore;
+    private final PoolMetrics poolMetrics;
+    private final SchemaVerifier schemaVerifier;
+    private final ExperienceIngestService experienceIngest;
+    private final RequestMetrics requestMetrics;
+    private final SqlStatementStats statementStats;
+    private final DataSource dataSource;
+    private final DbBulkhead bulkhead;
+    private final PlayerChangeCounter changeCounter;
+
+    @Autowired
+    public AdminRestApi(PlayerQueryCache queryCache, PlayerEntityCache entityCache, PlayerColumnStore columnStore, PoolMetrics poolMetrics, SchemaVerifier schemaVerifier, ExperienceIngestService experienceIngest, RequestMetrics requestMetrics, SqlStatementStats statementStats, DataSource dataSource, DbBulkhead bulkhead, PlayerChangeCounter changeCounter) {
+        this.queryCache = queryCache;
+        this.entityCache = entityCache;
+        this.columnStore = columnStore;
+        this.poolMetrics = poolMetrics;
+        this.schemaVerifier = schemaVerifier;
+        this.experienceIngest = experienceIngest;
+        this.requestMetrics = requestMetrics;
+        this.statementStats = statementStats;
+        this.dataSource = dataSource;
+        this.bulkhead = bulkhead;
+        this.changeCounter = changeCounter;
+    }
+
+    @GetMapping("cache/queries")
+    public ResponseEntity<Map<String, Object>> getQueryCacheStats() {
+        return new ResponseEntity<>(queryCache.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("changes")
+    public ResponseEntity<Map<String, Object>> getChangeCounterStats() {
+        return new ResponseEntity<>(changeCounter.getStats(), HttpStatus.OK);
+    }
+
+    @PostMapping("changes/sync")
+    public ResponseEntity<Map<String, Object>> syncChangeCounter() {
+        changeCounter.sync();
+        return new ResponseEntity<>(changeCounter.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("cache/players")
+    public ResponseEntity<Map<String, Object>> getEntityCacheStats() {
+        return new ResponseEntity<>(entityCache.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("pool")
+    public ResponseEntity<Map<String, Object>> getPoolStats() {
+        return new ResponseEntity<>(poolMetrics.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("bulkhead")
+    public ResponseEntity<Map<String, Object>> getBulkheadStats() {
+        return new ResponseEntity<>(bulkhead.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("schema/explain")
+    public ResponseEntity<Map<String, Object>> explainQueryShapes() {
+        return new ResponseEntity<>(schemaVerifier.explain(), HttpStatus.OK);
+    }
+
+    @GetMapping("index/players")
+    public ResponseEntity<Map<String, Object>> getColumnStoreStats() {
+        return new ResponseEntity<>(columnStore.getStats(), HttpStatus.OK);
+    }
+
+    @PostMapping("index/players/reload")
+    public ResponseEntity<Map<String, Object>> reloadColumnStore() {
+        columnStore.reload();
+        return new ResponseEntity<>(columnStore.getStats(), HttpStatus.OK);
+    }
+
+    @GetMapping("xp")
+    public ResponseEntity<Map<String, Object>> getExperienceIngestStats() {
+        return new ResponseEntity<>(experienceIngest.getStats(), HttpStatus.OK);
+    }
+
+    @PostMapping("xp/flush")
+    public ResponseEntity<Map<String, Object>> flushExperience() {
+        experienceIngest.flush();
+        return new ResponseEntity<>(experienceIngest.getStats(), HttpStatus.OK);
+    }
+
+    // Prometheus text exposition format
+    @GetMapping(value = "metrics", produces = "text/plain; version=0.0.4; charset=utf-8")
+    public ResponseEntity<String> scrapeMetrics() {
+        return new ResponseEntity<>(requestMetrics.scrape(), HttpStatus.OK);
+    }
+
+    @GetMapping("sql")
+    public ResponseEntity<Map<String, Object>> getStatementStats(@RequestParam(value = "limit", defaultValue = "50") Integer limit) {
+        return new ResponseEntity<>(statementStats.getStats(Math.max(limit, 0)), HttpStatus.OK);
+    }
+
+    @PostMapping("sql/reset")
+    public ResponseEntity<Map<String, Object>> resetStatementStats() {
+        statementStats.reset();
+        return new ResponseEntity<>(statementStats.getStats(0), HttpStatus.OK);
+    }
+
+    @GetMapping("replicas")
+    public ResponseEntity<Map<String, Object>> getReplicaStats() throws SQLException {
+        if (!dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+            return new ResponseEntity<>(Collections.singletonMap("enabled", false), HttpStatus.OK);
+        }
+        return new ResponseEntity<>(dataSource.unwrap(ReplicaRoutingDataSource.class).getStats(), HttpStatus.OK);
+    }
+
+    @PostMapping("replicas/check")
+    public ResponseEntity<Map<String, Object>> checkReplicas() throws SQLException {
+        if (dataSource.isWrapperFor(ReplicaRoutingDataSource.class)) {
+            dataSource.unwrap(ReplicaRoutingDataSource.class).checkReplicas();
+        }
+        return getReplicaStats();
+    }
+}
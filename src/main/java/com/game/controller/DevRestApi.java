@@ -1,78 +1,139 @@
 package com.game.controller;
 
+import com.game.datasource.DbBulkhead;
+import com.game.dto.BatchItemResult;
+import com.game.dto.ExperienceEvent;
+import com.game.dto.ImportResult;
+import com.game.dto.PlayersDeleteJob;
+import com.game.dto.PlayersPage;
+import com.game.dto.PlayersUpdate;
+import com.game.dto.PlayersUpdateResult;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.exception.BadRequestException;
+import com.game.exception.PreconditionFailedException;
+import com.game.service.ExperienceIngestService;
+import com.game.service.PlayerDeleteService;
+import com.game.service.PlayerExportService;
+import com.game.service.PlayerImportService;
 import com.game.service.PlayerService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/rest/")
 public class DevRestApi {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    public static final String PREFER_HEADER = "Prefer";
+    public static final String PREFERENCE_APPLIED_HEADER = "Preference-Applied";
+    public static final String RETURN_MINIMAL = "return=minimal";
+
     private final Logger logger;
     private final PlayerService playerService;
+    private final PlayerExportService exportService;
+    private final PlayerImportService importService;
+    private final ExperienceIngestService experienceIngest;
+    private final PlayerDeleteService deleteService;
+    private final DbBulkhead bulkhead;
 
     @Autowired
-    public DevRestApi(PlayerService playerService) {
+    public DevRestApi(PlayerService playerService, PlayerExportService exportService, PlayerImportService importService, ExperienceIngestService experienceIngest, PlayerDeleteService deleteService, DbBulkhead bulkhead) {
         this.logger = LoggerFactory.getLogger(this.getClass());
         this.playerService = playerService;
+        this.exportService = exportService;
+        this.importService = importService;
+        this.experienceIngest = experienceIngest;
+        this.deleteService = deleteService;
+        this.bulkhead = bulkhead;
     }
 
     @GetMapping("players/{id}")
-    public ResponseEntity<Player> getPlayerById(@PathVariable Long id) {
-        try {
-            Player player = playerService.getPlayerById(id);
-            if (player != null) {
-                return new ResponseEntity<>(player, HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(null, HttpStatus.resolve(404));
+    public Object getPlayerById(@PathVariable Long id) {
+        return execute(() -> {
+            try {
+                Player player = playerService.getPlayerById(id);
+                if (player != null) {
+                    return ResponseEntity.ok().eTag(PlayerETags.of(player)).body(player);
+                } else {
+                    return new ResponseEntity<>(null, HttpStatus.resolve(404));
+                }
+            } catch (BadRequestException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
             }
-        } catch (BadRequestException e) {
-            logger.info(e.getMessage());
-            return new ResponseEntity<>(null, HttpStatus.resolve(400));
-        }
+        });
     }
 
     @DeleteMapping("players/{id}")
-    public ResponseEntity<Integer> deletePlayerById(@PathVariable Long id) {
-        try {
-            if (playerService.deletePlayerById(id) == 1) {
-                return new ResponseEntity<>(null, HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(null, HttpStatus.resolve(404));
+    public Object deletePlayerById(@PathVariable Long id) {
+        return execute(() -> {
+            try {
+                if (playerService.deletePlayerById(id) == 1) {
+                    return new ResponseEntity<>(null, HttpStatus.OK);
+                } else {
+                    return new ResponseEntity<>(null, HttpStatus.resolve(404));
+                }
+            }catch (BadRequestException e){
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
             }
-        }catch (BadRequestException e){
-            logger.info(e.getMessage());
-            return new ResponseEntity<>(null, HttpStatus.resolve(400));
-        }
+        });
     }
 
+    // Prefer: return=minimal skips reading the row back: one UPDATE and a 204
     @PostMapping(value = "players/{id}")
-    public ResponseEntity<Player> updatePlayer(@PathVariable Long id, @RequestBody(required = false) Player player) {
-        try {
-            Player newPlayer = playerService.update(id, player);
-            if (newPlayer != null) {
-                return new ResponseEntity<>(newPlayer, HttpStatus.OK);
-            } else {
-                return new ResponseEntity<>(null, HttpStatus.resolve(404));
+    public Object updatePlayer(@PathVariable Long id, @RequestBody(required = false) Player player,
+                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                               @RequestHeader(value = PREFER_HEADER, required = false) String prefer) {
+        boolean minimal = prefer != null && prefer.toLowerCase().contains(RETURN_MINIMAL);
+        return execute(() -> {
+            try {
+                Player newPlayer = playerService.update(id, player, PlayerETags.expectedVersions(ifMatch), !minimal);
+                if (newPlayer == null) {
+                    return new ResponseEntity<>(null, HttpStatus.resolve(404));
+                }
+                if (!minimal) {
+                    return ResponseEntity.ok().eTag(PlayerETags.of(newPlayer)).body(newPlayer);
+                }
+                HttpHeaders headers = new HttpHeaders();
+                headers.set(PREFERENCE_APPLIED_HEADER, RETURN_MINIMAL);
+                if (newPlayer.getVersion() != null) {
+                    headers.setETag(PlayerETags.of(newPlayer));
+                }
+                return new ResponseEntity<>(null, headers, HttpStatus.NO_CONTENT);
+            } catch (BadRequestException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
+            } catch (PreconditionFailedException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(412));
             }
-        } catch (BadRequestException e) {
-            logger.info(e.getMessage());
-            return new ResponseEntity<>(null, HttpStatus.resolve(400));
-        }
+        });
     }
 
     @GetMapping("players/count")
-    public ResponseEntity<Integer>
+    public Object
     getPlayersCount(@RequestParam(required = false) String name,
                     @RequestParam(required = false) String title,
                     @RequestParam(required = false) Race race,
@@ -83,14 +144,75 @@ public class DevRestApi {
                     @RequestParam(required = false) Integer minExperience,
                     @RequestParam(required = false) Integer maxExperience,
                     @RequestParam(required = false) Integer minLevel,
-                    @RequestParam(required = false) Integer maxLevel) {
+                    @RequestParam(required = false) Integer maxLevel,
+                    WebRequest webRequest) {
 
-        Integer count = playerService.getAllPlayersCountWithFilter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
-        return new ResponseEntity<>(count, HttpStatus.OK);
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return execute(() -> {
+            Integer count = playerService.getAllPlayersCountWithFilter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+            return new ResponseEntity<>(count, HttpStatus.OK);
+        });
+    }
+
+    @GetMapping(value = "players/page")
+    public Object
+    getPlayersPage(@RequestParam(required = false) String name,
+                   @RequestParam(required = false) String title,
+                   @RequestParam(required = false) Race race,
+                   @RequestParam(required = false) Profession profession,
+                   @RequestParam(required = false) Long after,
+                   @RequestParam(required = false) Long before,
+                   @RequestParam(required = false) Boolean banned,
+                   @RequestParam(required = false) Integer minExperience,
+                   @RequestParam(required = false) Integer maxExperience,
+                   @RequestParam(required = false) Integer minLevel,
+                   @RequestParam(required = false) Integer maxLevel,
+                   @RequestParam(required = false) PlayerOrder order,
+                   @RequestParam(required = false) Integer pageNumber,
+                   @RequestParam(required = false) Integer pageSize,
+                   WebRequest webRequest) {
+
+        if (notModified(webRequest)) {
+            return null;
+        }
+        return execute(() -> {
+            PlayersPage page =
+                    playerService.getPlayersPageWithFilter(name, title, race, profession,
+                            after, before, banned, minExperience, maxExperience,
+                            minLevel, maxLevel, order, pageNumber, pageSize);
+
+            return new ResponseEntity<>(page, HttpStatus.OK);
+        });
+    }
+
+    @GetMapping(value = "players/export")
+    public ResponseEntity<StreamingResponseBody>
+    exportPlayers(@RequestParam(required = false) String name,
+                  @RequestParam(required = false) String title,
+                  @RequestParam(required = false) Race race,
+                  @RequestParam(required = false) Profession profession,
+                  @RequestParam(required = false) Long after,
+                  @RequestParam(required = false) Long before,
+                  @RequestParam(required = false) Boolean banned,
+                  @RequestParam(required = false) Integer minExperience,
+                  @RequestParam(required = false) Integer maxExperience,
+                  @RequestParam(required = false) Integer minLevel,
+                  @RequestParam(required = false) Integer maxLevel,
+                  @RequestParam(required = false) PlayerOrder order,
+                  @RequestParam(required = false, defaultValue = "NDJSON") ExportFormat format) {
+
+        StreamingResponseBody body = out -> exportService.export(name, title, race, profession,
+                after, before, banned, minExperience, maxExperience,
+                minLevel, maxLevel, order, null, null, format, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getContentType() + ";charset=UTF-8"))
+                .body(body);
     }
 
     @GetMapping(value = "players")
-    public ResponseEntity<List<Player>>
+    public Object
     getPlayers(@RequestParam(required = false) String name,
                @RequestParam(required = false) String title,
                @RequestParam(required = false) Race race,
@@ -104,20 +226,229 @@ public class DevRestApi {
                @RequestParam(required = false) Integer maxLevel,
                @RequestParam(required = false) PlayerOrder order,
                @RequestParam(required = false) Integer pageNumber,
-               @RequestParam(required = false) Integer pageSize) {
+               @RequestParam(required = false) Integer pageSize,
+               @RequestParam(required = false) String cursor,
+               @RequestParam(required = false) String fields,
+               HttpServletResponse response,
+               WebRequest webRequest) {
+
+        Set<PlayerField> parsed;
+        try {
+            parsed = PlayerField.parse(fields);
+        } catch (BadRequestException e) {
+            logger.info(e.getMessage());
+            return new ResponseEntity<>(null, HttpStatus.resolve(400));
+        }
+        Set<PlayerField> selected = parsed;
+
+        if (cursor != null) {
+            return execute(() -> {
+                ResponseEntity<List<Player>> page = getPlayersAfterCursor(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, cursor, pageSize);
+                if (selected.isEmpty() || page.getBody() == null) {
+                    return page;
+                }
+                return new ResponseEntity<>(PlayerService.project(page.getBody(), selected), page.getHeaders(), page.getStatusCode());
+            });
+        }
+
+        if (notModified(webRequest)) {
+            return null;
+        }
+
+        // too large to build as a list: the same JSON array is streamed row by row like an export
+        if (exportService.isOversizePage(pageSize)) {
+            response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+            StreamingResponseBody body = out -> exportService.export(name, title, race, profession, after, before, banned,
+                    minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, ExportFormat.JSON, selected, out);
+            return body;
+        }
+
+        return execute(() -> {
+            // sparse fieldset: a scalar projection of just those columns instead of managed entities
+            if (!selected.isEmpty()) {
+                List<Map<String, Object>> rows =
+                        playerService.getPlayerFieldsWithFilter(name, title, race, profession,
+                                after, before, banned, minExperience, maxExperience,
+                                minLevel, maxLevel, order, pageNumber, pageSize, selected);
+                return new ResponseEntity<>(rows, HttpStatus.OK);
+            }
+
+            List<Player> players =
+                    playerService.getAllPlayersWithFilter(name, title, race, profession,
+                            after, before, banned, minExperience, maxExperience,
+                            minLevel, maxLevel, order, pageNumber, pageSize);
 
-        List<Player> players =
-                playerService.getAllPlayersWithFilter(name, title, race, profession,
-                        after, before, banned, minExperience, maxExperience,
-                        minLevel, maxLevel, order, pageNumber, pageSize);
+            return new ResponseEntity<>(players, HttpStatus.OK);
+        });
+    }
+
+    /**
+     * With async handling enabled the work runs on the DB bulkhead and the servlet thread is released at once;
+     * a full bulkhead is answered with 503 and Retry-After. Handlers return Object because Spring picks the
+     * return value handler by the value, a ResponseEntity when inline and a CompletableFuture when async.
+     * Handlers that do not come through here: streamed bodies (export and oversize pages), which hold their
+     * connection for the whole stream on the streaming executor; import, whose rows are written by the import
+     * writer threads; conditional list and count requests answered with 304, and the xp and delete-job
+     * endpoints, none of which touch the database on the servlet thread.
+     */
+    private Object execute(Supplier<ResponseEntity<?>> work) {
+        if (!bulkhead.isEnabled()) {
+            return work.get();
+        }
+        try {
+            return bulkhead.submit(work::get);
+        } catch (RejectedExecutionException e) {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(bulkhead.getRetryAfterSeconds()));
+            return new ResponseEntity<>(null, headers, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    // list and count bodies only change with the collection version, so a matching If-None-Match skips the query
+    // as well; the version is kept in memory, so this never touches the database
+    private boolean notModified(WebRequest webRequest) {
+        Long version = playerService.getCollectionVersion();
+        return version != null && webRequest.checkNotModified(PlayerETags.collection(version));
+    }
+
+    private ResponseEntity<List<Player>> getPlayersAfterCursor(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, String cursor, Integer pageSize) {
+        try {
+            List<Player> players = playerService.getPlayersAfterCursor(name, title, race, profession,
+                    after, before, banned, minExperience, maxExperience,
+                    minLevel, maxLevel, order, cursor, pageSize);
+
+            HttpHeaders headers = new HttpHeaders();
+            int limit = pageSize == null ? 3 : pageSize;
+            if (players.size() == limit) {
+                PlayerOrder seekOrder = order == null ? PlayerOrder.ID : order;
+                headers.set(NEXT_CURSOR_HEADER, PlayerCursor.of(seekOrder, players.get(players.size() - 1)).encode());
+            }
+            return new ResponseEntity<>(players, headers, HttpStatus.OK);
+        } catch (BadRequestException e) {
+            logger.info(e.getMessage());
+            return new ResponseEntity<>(null, HttpStatus.resolve(400));
+        }
+    }
+
+    // dryRun only counts the matching players; otherwise they are deleted in the background, see delete-jobs
+    @DeleteMapping("players")
+    public Object
+    deletePlayers(@RequestParam(required = false) String name,
+                  @RequestParam(required = false) String title,
+                  @RequestParam(required = false) Race race,
+                  @RequestParam(required = false) Profession profession,
+                  @RequestParam(required = false) Long after,
+                  @RequestParam(required = false) Long before,
+                  @RequestParam(required = false) Boolean banned,
+                  @RequestParam(required = false) Integer minExperience,
+                  @RequestParam(required = false) Integer maxExperience,
+                  @RequestParam(required = false) Integer minLevel,
+                  @RequestParam(required = false) Integer maxLevel,
+                  @RequestParam(required = false, defaultValue = "false") boolean dryRun) {
+        // built here, the bulkhead thread has no current request
+        UriComponentsBuilder jobLocation = ServletUriComponentsBuilder.fromCurrentContextPath().path("/rest/players/delete-jobs/{id}");
+        return execute(() -> {
+            try {
+                if (dryRun) {
+                    return new ResponseEntity<>(deleteService.dryRun(name, title, race, profession,
+                            after, before, banned, minExperience, maxExperience, minLevel, maxLevel), HttpStatus.OK);
+                }
+                PlayersDeleteJob job = deleteService.start(name, title, race, profession,
+                        after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+                HttpHeaders headers = new HttpHeaders();
+                headers.setLocation(jobLocation.buildAndExpand(job.getId()).toUri());
+                return new ResponseEntity<>(job, headers, HttpStatus.ACCEPTED);
+            } catch (BadRequestException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
+            }
+        });
+    }
 
-        return new ResponseEntity<>(players, HttpStatus.OK);
+    @GetMapping("players/delete-jobs/{id}")
+    public ResponseEntity<PlayersDeleteJob> getDeleteJob(@PathVariable Long id) {
+        PlayersDeleteJob job = deleteService.getJob(id);
+        return new ResponseEntity<>(job, job == null ? HttpStatus.resolve(404) : HttpStatus.OK);
+    }
+
+    @DeleteMapping("players/delete-jobs/{id}")
+    public ResponseEntity<PlayersDeleteJob> cancelDeleteJob(@PathVariable Long id) {
+        PlayersDeleteJob job = deleteService.cancel(id);
+        return new ResponseEntity<>(job, job == null ? HttpStatus.resolve(404) : HttpStatus.OK);
     }
 
     @PostMapping(value = "players/", consumes = "application/json")
-    public ResponseEntity<Player> addPlayer(@RequestBody Player player) {
+    public Object addPlayer(@RequestBody Player player) {
+        return execute(() -> {
+            try {
+                return new ResponseEntity<>(playerService.createAndAddPlayer(player), HttpStatus.OK);
+            } catch (BadRequestException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
+            }
+        });
+    }
+
+    @PostMapping(value = "players/batch", consumes = "application/json")
+    public Object addPlayers(@RequestBody List<Player> players) {
+        return execute(() -> {
+            try {
+                return new ResponseEntity<List<BatchItemResult>>(playerService.createAndAddPlayers(players), HttpStatus.OK);
+            } catch (BadRequestException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
+            }
+        });
+    }
+
+    @PostMapping(value = "players/update", consumes = "application/json")
+    public Object
+    updatePlayers(@RequestParam(required = false) String name,
+                  @RequestParam(required = false) String title,
+                  @RequestParam(required = false) Race race,
+                  @RequestParam(required = false) Profession profession,
+                  @RequestParam(required = false) Long after,
+                  @RequestParam(required = false) Long before,
+                  @RequestParam(required = false) Boolean banned,
+                  @RequestParam(required = false) Integer minExperience,
+                  @RequestParam(required = false) Integer maxExperience,
+                  @RequestParam(required = false) Integer minLevel,
+                  @RequestParam(required = false) Integer maxLevel,
+                  @RequestBody PlayersUpdate update) {
+        return execute(() -> {
+            try {
+                PlayersUpdateResult result = playerService.updateAllWithFilter(name, title, race, profession,
+                        after, before, banned, minExperience, maxExperience, minLevel, maxLevel, update);
+                return new ResponseEntity<>(result, HttpStatus.OK);
+            } catch (BadRequestException e) {
+                logger.info(e.getMessage());
+                return new ResponseEntity<>(null, HttpStatus.resolve(400));
+            }
+        });
+    }
+
+    // the body is read line by line from the request stream, never buffered whole
+    @PostMapping(value = "players/import")
+    public ResponseEntity<ImportResult> importPlayers(@RequestParam(required = false, defaultValue = "NDJSON") ExportFormat format,
+                                                      HttpServletRequest request) throws IOException {
         try {
-            return new ResponseEntity<>(playerService.createAndAddPlayer(player), HttpStatus.OK);
+            return new ResponseEntity<>(importService.importPlayers(request.getInputStream(), format), HttpStatus.OK);
+        } catch (BadRequestException e) {
+            logger.info(e.getMessage());
+            return new ResponseEntity<>(null, HttpStatus.resolve(400));
+        }
+    }
+
+    // grants are buffered and applied by the next flush, so the response only confirms they were accepted
+    @PostMapping(value = "players/xp", consumes = "application/json")
+    public ResponseEntity<Integer> addExperience(@RequestBody List<ExperienceEvent> events) {
+        try {
+            if (experienceIngest.submit(events)) {
+                return new ResponseEntity<>(events.size(), HttpStatus.ACCEPTED);
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.RETRY_AFTER, "1");
+            return new ResponseEntity<>(null, headers, HttpStatus.SERVICE_UNAVAILABLE);
         } catch (BadRequestException e) {
             logger.info(e.getMessage());
             return new ResponseEntity<>(null, HttpStatus.resolve(400));
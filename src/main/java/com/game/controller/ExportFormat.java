@@ -0,0 +1,17 @@
+package com.game.controller;
+
+public enum ExportFormat {
+    NDJSON("application/x-ndjson"), // default
+    CSV("text/csv"),
+    JSON("application/json");
+
+    private final String contentType;
+
+    ExportFormat(String contentType) {
+        this.contentType = contentType;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+}
@@ -0,0 +1,89 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+import com.game.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Continuation token for keyset pagination: the sort key of the last row of a page plus its id.
+ * Clients receive it as an opaque string and pass it back unchanged to fetch the next page.
+ */
+public class PlayerCursor {
+
+    private static final String SEPARATOR = ":";
+
+    private final PlayerOrder order;
+    private final Object sortValue;
+    private final Long id;
+
+    private PlayerCursor(PlayerOrder order, Object sortValue, Long id) {
+        this.order = order;
+        this.sortValue = sortValue;
+        this.id = id;
+    }
+
+    public static PlayerCursor of(PlayerOrder order, Player player) {
+        switch (order) {
+            case NAME:
+                return new PlayerCursor(order, player.getName(), player.getId());
+            case EXPERIENCE:
+                return new PlayerCursor(order, player.getExperience(), player.getId());
+            case LEVEL:
+                return new PlayerCursor(order, player.getLevel(), player.getId());
+            case BIRTHDAY:
+                return new PlayerCursor(order, new Date(player.getBirthday().getTime()), player.getId());
+            default:
+                return new PlayerCursor(PlayerOrder.ID, player.getId(), player.getId());
+        }
+    }
+
+    public static PlayerCursor decode(String token, PlayerOrder expectedOrder) throws BadRequestException {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, 3);
+            if (parts.length != 3) {
+                throw new BadRequestException("cursor IllegalArgumentException");
+            }
+            PlayerOrder order = PlayerOrder.valueOf(parts[0]);
+            if (order != expectedOrder) {
+                throw new BadRequestException("cursor order does not match order IllegalArgumentException");
+            }
+            Long id = Long.valueOf(parts[1]);
+            String value = parts[2];
+            switch (order) {
+                case NAME:
+                    return new PlayerCursor(order, value, id);
+                case EXPERIENCE:
+                case LEVEL:
+                    return new PlayerCursor(order, Integer.valueOf(value), id);
+                case BIRTHDAY:
+                    return new PlayerCursor(order, new Date(Long.parseLong(value)), id);
+                default:
+                    return new PlayerCursor(order, id, id);
+            }
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("cursor IllegalArgumentException");
+        }
+    }
+
+    public String encode() {
+        String value = sortValue instanceof Date ? String.valueOf(((Date) sortValue).getTime()) : String.valueOf(sortValue);
+        String raw = order.name() + SEPARATOR + id + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public PlayerOrder getOrder() {
+        return order;
+    }
+
+    public Object getSortValue() {
+        return sortValue;
+    }
+
+    public Long getId() {
+        return id;
+    }
+}
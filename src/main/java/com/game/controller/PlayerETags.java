@@ -0,0 +1,56 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+
+import java.security.SecureRandom;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Validators for player resources. A single player's ETag is its row version, which every update increments.
+ * List and count responses share a weak ETag built from this instance's query cache generation, which moves with
+ * every write, here at once and elsewhere within one sync of the player_changes counter. The ETag also names the
+ * instance, so one instance never mistakes another's generation for its own; writes made with plain SQL outside
+ * the application must bump player_changes to be noticed.
+ */
+public final class PlayerETags {
+
+    private static final Pattern ENTITY_TAG = Pattern.compile("(W/)?\"([^\"]*)\"");
+    private static final String INSTANCE = Long.toString(new SecureRandom().nextLong() & Long.MAX_VALUE, 36);
+
+    private PlayerETags() {
+    }
+
+    public static String of(Player player) {
+        return "\"" + player.getVersion() + "\"";
+    }
+
+    public static String collection(long version) {
+        return "W/\"" + INSTANCE + "-" + version + "\"";
+    }
+
+    /**
+     * The versions an If-Match header accepts, any of which matches: null when the header is absent or "*".
+     * Weak and unparsable ETags never match under the strong comparison, so they add nothing to the set.
+     */
+    public static Set<Long> expectedVersions(String ifMatch) {
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        Set<Long> versions = new LinkedHashSet<>();
+        Matcher etag = ENTITY_TAG.matcher(ifMatch);
+        while (etag.find()) {
+            if (etag.group(1) != null) {
+                continue;
+            }
+            try {
+                versions.add(Long.parseLong(etag.group(2)));
+            } catch (NumberFormatException ignored) {
+                // not one of our ETags
+            }
+        }
+        return versions;
+    }
+}
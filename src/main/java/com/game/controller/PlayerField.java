@@ -0,0 +1,82 @@
+package com.game.controller;
+
+import com.game.entity.Player;
+import com.game.exception.BadRequestException;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+public enum PlayerField {
+    ID("id"),
+    NAME("name"),
+    TITLE("title"),
+    RACE("race"),
+    PROFESSION("profession"),
+    BIRTHDAY("birthday"),
+    BANNED("banned"),
+    EXPERIENCE("experience"),
+    LEVEL("level"),
+    UNTIL_NEXT_LEVEL("untilNextLevel");
+
+    private final String fieldName;
+
+    PlayerField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Object valueOf(Player player) {
+        switch (this) {
+            case ID:
+                return player.getId();
+            case NAME:
+                return player.getName();
+            case TITLE:
+                return player.getTitle();
+            case RACE:
+                return player.getRace();
+            case PROFESSION:
+                return player.getProfession();
+            case BIRTHDAY:
+                return player.getBirthday();
+            case BANNED:
+                return player.getBanned();
+            case EXPERIENCE:
+                return player.getExperience();
+            case LEVEL:
+                return player.getLevel();
+            default:
+                return player.getUntilNextLevel();
+        }
+    }
+
+    /**
+     * Parses a fields= list of JSON property names such as "id,name,level"; null or blank selects nothing.
+     */
+    public static Set<PlayerField> parse(String fields) throws BadRequestException {
+        Set<PlayerField> parsed = EnumSet.noneOf(PlayerField.class);
+        if (fields == null) {
+            return parsed;
+        }
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            PlayerField field = null;
+            for (PlayerField candidate : values()) {
+                if (candidate.fieldName.equals(trimmed)) {
+                    field = candidate;
+                }
+            }
+            if (field == null) {
+                throw new BadRequestException(String.format("fields ={%s} IllegalArgumentException", trimmed));
+            }
+            parsed.add(field);
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,107 @@
+package com.game.datasource;
+
+import com.game.metrics.RequestTiming;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs request database work on a fixed pool sized to the connection pool, so servlet threads are not held
+ * while a query waits for a connection. Work beyond the threads waits in a bounded queue; once that is full
+ * submit refuses it at once, and the caller answers 503 instead of letting the backlog grow without limit.
+ * The request timing and the read-your-writes pin of the submitting thread are carried over to the worker.
+ */
+@Component
+public class DbBulkhead implements DisposableBean {
+
+    private final boolean enabled;
+    private final int threads;
+    private final int queueCapacity;
+    private final int retryAfterSeconds;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rejected = new AtomicLong();
+
+    @Autowired
+    public DbBulkhead(@Value("${player.async.enabled:false}") boolean enabled,
+                      @Value("${player.async.threads:0}") int threads,
+                      @Value("${db.pool.maximum-size:10}") int poolSize,
+                      @Value("${player.async.queue-capacity:100}") int queueCapacity,
+                      @Value("${player.async.retry-after-seconds:1}") int retryAfterSeconds) {
+        this.enabled = enabled;
+        this.threads = threads > 0 ? threads : poolSize;
+        this.queueCapacity = Math.max(queueCapacity, 0);
+        this.retryAfterSeconds = retryAfterSeconds;
+        BlockingQueue<Runnable> queue = this.queueCapacity == 0
+                ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(this.queueCapacity);
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(this.threads, this.threads, 0, TimeUnit.MILLISECONDS, queue, task -> {
+            Thread thread = new Thread(task, "db-bulkhead-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    /**
+     * The work's result, completed on a bulkhead thread. A checked exception thrown by the work completes
+     * the future exceptionally, wrapped in a CompletionException.
+     *
+     * @throws RejectedExecutionException when every thread is busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> work) {
+        Callable<T> task = RequestTiming.propagate(ReplicaRouting.propagate(work));
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    return task.call();
+                } catch (RuntimeException e) {
+                    throw e;
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw e;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("threads", threads);
+        stats.put("active", executor.getActiveCount());
+        stats.put("queued", executor.getQueue().size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("completed", executor.getCompletedTaskCount());
+        stats.put("rejected", rejected.get());
+        return stats;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,81 @@
+package com.game.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+/**
+ * Read-your-writes for clients of a replicated database: a write request sets a cookie holding the time until which
+ * that client's reads are pinned to the primary, so it does not miss its own change on a lagging replica.
+ * Does nothing when the DataSource has no replicas or db.replicas.read-your-writes-ms is 0.
+ */
+@Component
+public class ReadYourWritesInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String COOKIE_NAME = "rpg-primary-until";
+
+    private final boolean enabled;
+    private final long windowMs;
+
+    @Autowired
+    public ReadYourWritesInterceptor(DataSource dataSource, @Value("${db.replicas.read-your-writes-ms:5000}") long windowMs) throws SQLException {
+        this.enabled = windowMs > 0 && dataSource.isWrapperFor(ReplicaRoutingDataSource.class);
+        this.windowMs = windowMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!enabled || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        if (isWrite(request.getMethod())) {
+            Cookie cookie = new Cookie(COOKIE_NAME, String.valueOf(now + windowMs));
+            cookie.setPath("/");
+            cookie.setMaxAge((int) Math.max(1, (windowMs + 999) / 1000));
+            cookie.setHttpOnly(true);
+            response.addCookie(cookie);
+            ReplicaRouting.pinPrimary();
+        } else if (pinnedUntil(request, now) > now) {
+            ReplicaRouting.pinPrimary();
+        }
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ReplicaRouting.unpin();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        ReplicaRouting.unpin();
+    }
+
+    private static boolean isWrite(String method) {
+        return !"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method);
+    }
+
+    // the cookie is client-controlled: a value beyond what a write now would set was not issued by us and is ignored
+    private long pinnedUntil(HttpServletRequest request, long now) {
+        Cookie cookie = WebUtils.getCookie(request, COOKIE_NAME);
+        if (cookie == null) {
+            return 0;
+        }
+        try {
+            long until = Long.parseLong(cookie.getValue());
+            return until > now + windowMs ? 0 : until;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.game.datasource;
+
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Per-thread and process-wide routing hints for {@link ReplicaRoutingDataSource}. A thread pinned to the primary
+ * never reads from a replica; {@link ReadYourWritesInterceptor} pins requests of clients that wrote recently.
+ */
+public final class ReplicaRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY = new ThreadLocal<>();
+
+    private static volatile long lastWriteMillis;
+    private static volatile long consistencyWindowMs;
+    private static volatile boolean replicated;
+    private static volatile boolean lagMeasured;
+
+    private ReplicaRouting() {
+    }
+
+    public static boolean isPrimaryPinned() {
+        return PRIMARY.get() != null;
+    }
+
+    static void pinPrimary() {
+        PRIMARY.set(Boolean.TRUE);
+    }
+
+    static void unpin() {
+        PRIMARY.remove();
+    }
+
+    public static <T> T onPrimary(Supplier<T> action) {
+        if (isPrimaryPinned()) {
+            return action.get();
+        }
+        pinPrimary();
+        try {
+            return action.get();
+        } finally {
+            unpin();
+        }
+    }
+
+    // the task keeps the calling thread's primary pin when it runs on another thread
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        if (!isPrimaryPinned()) {
+            return task;
+        }
+        return () -> {
+            if (isPrimaryPinned()) {
+                return task.call();
+            }
+            pinPrimary();
+            try {
+                return task.call();
+            } finally {
+                unpin();
+            }
+        };
+    }
+
+    /**
+     * For loads whose result outlives the request, such as cache entries: while a write is younger than the
+     * consistency window a replica may not have it yet, so the load reads from the primary instead. Without a
+     * lag check nothing bounds how far a replica is behind, and such loads always read from the primary.
+     */
+    public static <T> T consistentLoad(Supplier<T> loader) {
+        if (recentlyWritten() || replicated && !lagMeasured) {
+            return onPrimary(loader);
+        }
+        return loader.get();
+    }
+
+    // a replica read now may still miss the last write; always false without replicas
+    public static boolean recentlyWritten() {
+        return System.currentTimeMillis() - lastWriteMillis < consistencyWindowMs;
+    }
+
+    // reads may be served by a replica, which can be behind the primary
+    public static boolean isReplicated() {
+        return replicated;
+    }
+
+    static void recordWrite() {
+        lastWriteMillis = System.currentTimeMillis();
+    }
+
+    static void configure(boolean hasReplicas, boolean lagChecked, long windowMs) {
+        replicated = hasReplicas;
+        lagMeasured = lagChecked;
+        consistencyWindowMs = windowMs;
+    }
+}
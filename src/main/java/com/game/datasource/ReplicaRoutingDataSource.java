@@ -0,0 +1,257 @@
+package com.game.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to replicas and everything else to the primary. The physical connection is fetched
+ * lazily on the first statement, after the transaction manager has published its read-only flag, which is what
+ * the routing decision looks at. Replicas are taken round-robin among those that passed the last health check and
+ * lag no more than max-lag seconds; a replica that fails to hand out a connection is skipped until the next check,
+ * and with no usable replica reads fall back to the primary.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final Router router;
+    private final ScheduledExecutorService scheduler;
+
+    private ReplicaRoutingDataSource(Router router, long checkIntervalMs) {
+        super(router);
+        this.router = router;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "replica-health");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::checkQuietly, checkIntervalMs, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param lagQuery      run on each replica by the health check, empty to skip the lag check; SHOW REPLICA STATUS
+     *                      and SHOW SLAVE STATUS are read by column name, any other query must return the lag in seconds
+     * @param readYourWritesMs how long after a write cache loads keep reading from the primary
+     */
+    public static ReplicaRoutingDataSource create(DataSource primary, Map<String, DataSource> replicas, String lagQuery,
+                                                  long maxLagSeconds, long checkIntervalMs, long readYourWritesMs) {
+        List<Replica> targets = new ArrayList<>();
+        replicas.forEach((name, dataSource) -> targets.add(new Replica(name, dataSource)));
+        Router router = new Router(primary, targets, lagQuery == null ? "" : lagQuery.trim(), maxLagSeconds);
+        router.checkReplicas();
+        if (!targets.isEmpty() && router.lagQuery.isEmpty()) {
+            log.warn("read replicas without db.replicas.lag-query: replica lag is not bounded, cache loads read from the primary");
+        }
+        ReplicaRouting.configure(!targets.isEmpty(), !router.lagQuery.isEmpty(), Math.max(readYourWritesMs, maxLagSeconds * 1000));
+        return new ReplicaRoutingDataSource(router, checkIntervalMs);
+    }
+
+    public DataSource getPrimary() {
+        return router.primary;
+    }
+
+    public void checkReplicas() {
+        router.checkReplicas();
+    }
+
+    public Map<String, Object> getStats() {
+        return router.getStats();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+        ReplicaRouting.configure(false, false, 0);
+        closeQuietly(router.primary);
+        for (Replica replica : router.replicas) {
+            closeQuietly(replica.dataSource);
+        }
+    }
+
+    private void checkQuietly() {
+        try {
+            router.checkReplicas();
+        } catch (RuntimeException e) {
+            log.warn("replica health check failed", e);
+        }
+    }
+
+    private static void closeQuietly(DataSource dataSource) {
+        try {
+            if (dataSource instanceof EmbeddedDatabase) {
+                ((EmbeddedDatabase) dataSource).shutdown();
+            } else if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        } catch (Exception e) {
+            log.warn("failed to close data source", e);
+        }
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        private final LongAdder reads = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private volatile boolean up = true;
+        private volatile long lagSeconds = -1;
+        private volatile String lastError;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        private void markDown(SQLException e) {
+            up = false;
+            lastError = e.getMessage();
+            failures.increment();
+        }
+    }
+
+    private static final class Router extends AbstractDataSource {
+        private final DataSource primary;
+        private final List<Replica> replicas;
+        private final String lagQuery;
+        private final long maxLagSeconds;
+        private final AtomicInteger next = new AtomicInteger();
+        private final LongAdder primaryConnections = new LongAdder();
+        private final LongAdder fallbacks = new LongAdder();
+
+        private Router(DataSource primary, List<Replica> replicas, String lagQuery, long maxLagSeconds) {
+            this.primary = primary;
+            this.replicas = replicas;
+            this.lagQuery = lagQuery;
+            this.maxLagSeconds = maxLagSeconds;
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                ReplicaRouting.recordWrite();
+                return primaryConnection();
+            }
+            if (ReplicaRouting.isPrimaryPinned()) {
+                return primaryConnection();
+            }
+            int start = next.getAndIncrement();
+            for (int i = 0; i < replicas.size(); i++) {
+                Replica replica = replicas.get(Math.floorMod(start + i, replicas.size()));
+                if (!usable(replica)) {
+                    continue;
+                }
+                try {
+                    Connection connection = replica.dataSource.getConnection();
+                    replica.reads.increment();
+                    return connection;
+                } catch (SQLException e) {
+                    log.warn("replica {} is unavailable, reading elsewhere: {}", replica.name, e.getMessage());
+                    replica.markDown(e);
+                }
+            }
+            fallbacks.increment();
+            return primaryConnection();
+        }
+
+        // the replica pools hold their own credentials, so a connection for other ones can only come from the primary
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+                ReplicaRouting.recordWrite();
+            }
+            primaryConnections.increment();
+            return primary.getConnection(username, password);
+        }
+
+        private Connection primaryConnection() throws SQLException {
+            primaryConnections.increment();
+            return primary.getConnection();
+        }
+
+        private boolean usable(Replica replica) {
+            return replica.up && (lagQuery.isEmpty() || replica.lagSeconds >= 0 && replica.lagSeconds <= maxLagSeconds);
+        }
+
+        private void checkReplicas() {
+            for (Replica replica : replicas) {
+                try (Connection connection = replica.dataSource.getConnection()) {
+                    if (!connection.isValid(2)) {
+                        throw new SQLException("connection is not valid");
+                    }
+                    if (!lagQuery.isEmpty()) {
+                        replica.lagSeconds = queryLag(connection);
+                    }
+                    replica.up = true;
+                    replica.lastError = null;
+                } catch (SQLException e) {
+                    replica.markDown(e);
+                }
+            }
+        }
+
+        // no row or a NULL lag means replication is not running, which counts as infinitely behind
+        private long queryLag(Connection connection) throws SQLException {
+            try (Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                if (!resultSet.next()) {
+                    return Long.MAX_VALUE;
+                }
+                int column = lagColumn(resultSet.getMetaData());
+                long lag = resultSet.getLong(column);
+                return resultSet.wasNull() ? Long.MAX_VALUE : lag;
+            }
+        }
+
+        private static int lagColumn(ResultSetMetaData metaData) throws SQLException {
+            for (int column = 1; column <= metaData.getColumnCount(); column++) {
+                String label = metaData.getColumnLabel(column);
+                if ("Seconds_Behind_Source".equalsIgnoreCase(label) || "Seconds_Behind_Master".equalsIgnoreCase(label)) {
+                    return column;
+                }
+            }
+            return 1;
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("primaryConnections", primaryConnections.sum());
+            stats.put("fallbacks", fallbacks.sum());
+            stats.put("maxLagSeconds", maxLagSeconds);
+            List<Map<String, Object>> replicaStats = new ArrayList<>();
+            for (Replica replica : replicas) {
+                Map<String, Object> status = new LinkedHashMap<>();
+                status.put("name", replica.name);
+                status.put("up", replica.up);
+                status.put("usable", usable(replica));
+                status.put("lagSeconds", replica.lagSeconds < 0 || replica.lagSeconds == Long.MAX_VALUE ? null : replica.lagSeconds);
+                status.put("reads", replica.reads.sum());
+                status.put("failures", replica.failures.sum());
+                status.put("lastError", replica.lastError);
+                replicaStats.add(status);
+            }
+            stats.put("replicas", replicaStats);
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.game.dto;
+
+import com.game.entity.Player;
+
+public class BatchItemResult {
+
+    private int index;
+    private int status;
+    private Player player;
+    private String error;
+
+    public BatchItemResult() {
+    }
+
+    private BatchItemResult(int index, int status, Player player, String error) {
+        this.index = index;
+        this.status = status;
+        this.player = player;
+        this.error = error;
+    }
+
+    public static BatchItemResult created(int index, Player player) {
+        return new BatchItemResult(index, 200, player, null);
+    }
+
+    public static BatchItemResult rejected(int index, String error) {
+        return new BatchItemResult(index, 400, null, error);
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public Player getPlayer() {
+        return player;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,23 @@
+package com.game.dto;
+
+public class ExperienceEvent {
+
+    private Long playerId;
+    private Integer delta;
+
+    public ExperienceEvent() {
+    }
+
+    public ExperienceEvent(Long playerId, Integer delta) {
+        this.playerId = playerId;
+        this.delta = delta;
+    }
+
+    public Long getPlayerId() {
+        return playerId;
+    }
+
+    public Integer getDelta() {
+        return delta;
+    }
+}
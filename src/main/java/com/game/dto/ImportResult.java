@@ -0,0 +1,72 @@
+package com.game.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ImportResult {
+
+    private long lines;
+    private long imported;
+    private long rejected;
+    private int batches;
+    private String failure;
+    private List<LineError> errors = new ArrayList<>();
+
+    public ImportResult() {
+    }
+
+    public ImportResult(long lines, long imported, long rejected, int batches, String failure, List<LineError> errors) {
+        this.lines = lines;
+        this.imported = imported;
+        this.rejected = rejected;
+        this.batches = batches;
+        this.failure = failure;
+        this.errors = errors;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getImported() {
+        return imported;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public int getBatches() {
+        return batches;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public List<LineError> getErrors() {
+        return errors;
+    }
+
+    public static class LineError {
+
+        private long line;
+        private String error;
+
+        public LineError() {
+        }
+
+        public LineError(long line, String error) {
+            this.line = line;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
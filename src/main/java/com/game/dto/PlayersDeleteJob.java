@@ -0,0 +1,59 @@
+package com.game.dto;
+
+public class PlayersDeleteJob {
+
+    public enum State {
+        DRY_RUN, QUEUED, RUNNING, CANCELLING, CANCELLED, COMPLETED, FAILED
+    }
+
+    private Long id;
+    private State state;
+    private long matching;
+    private long deleted;
+    private int chunks;
+    private Long lastId;
+    private String error;
+
+    public PlayersDeleteJob() {
+    }
+
+    public PlayersDeleteJob(Long id, State state, long matching, long deleted, int chunks, Long lastId, String error) {
+        this.id = id;
+        this.state = state;
+        this.matching = matching;
+        this.deleted = deleted;
+        this.chunks = chunks;
+        this.lastId = lastId;
+        this.error = error;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    // players matching the filter when the job was submitted
+    public long getMatching() {
+        return matching;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    // the job has handled every matching player up to this id
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,27 @@
+package com.game.dto;
+
+import com.game.entity.Player;
+
+import java.util.List;
+
+public class PlayersPage {
+
+    private List<Player> players;
+    private Integer count;
+
+    public PlayersPage() {
+    }
+
+    public PlayersPage(List<Player> players, Integer count) {
+        this.players = players;
+        this.count = count;
+    }
+
+    public List<Player> getPlayers() {
+        return players;
+    }
+
+    public Integer getCount() {
+        return count;
+    }
+}
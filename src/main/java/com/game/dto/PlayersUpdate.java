@@ -0,0 +1,43 @@
+package com.game.dto;
+
+/**
+ * Mutation applied by POST /rest/players/update to every player matching the filter.
+ * Fields left null are not touched; experience and addExperience are mutually exclusive.
+ */
+public class PlayersUpdate {
+
+    private Boolean banned;
+    private Integer experience;
+    private Integer addExperience;
+    private String title;
+
+    public PlayersUpdate() {
+    }
+
+    public PlayersUpdate(Boolean banned, Integer experience, Integer addExperience, String title) {
+        this.banned = banned;
+        this.experience = experience;
+        this.addExperience = addExperience;
+        this.title = title;
+    }
+
+    public Boolean getBanned() {
+        return banned;
+    }
+
+    public Integer getExperience() {
+        return experience;
+    }
+
+    public Integer getAddExperience() {
+        return addExperience;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public boolean isEmpty() {
+        return banned == null && experience == null && addExperience == null && title == null;
+    }
+}
@@ -0,0 +1,23 @@
+package com.game.dto;
+
+public class PlayersUpdateResult {
+
+    private long updated;
+    private int chunks;
+
+    public PlayersUpdateResult() {
+    }
+
+    public PlayersUpdateResult(long updated, int chunks) {
+        this.updated = updated;
+        this.chunks = chunks;
+    }
+
+    public long getUpdated() {
+        return updated;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+}
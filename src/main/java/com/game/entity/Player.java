@@ -1,5 +1,7 @@
 package com.game.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Date;
@@ -43,6 +45,12 @@ public class Player implements Serializable {
     @Column(name = "untilNextLevel")
     private Integer untilNextLevel;
 
+    // bumped by every update, bulk SQL updates included; the ETag of GET /rest/players/{id}
+    @JsonIgnore
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
+
     public Long getId() {
         return id;
     }
@@ -125,6 +133,14 @@ public class Player implements Serializable {
         this.untilNextLevel = untilNextLevel;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
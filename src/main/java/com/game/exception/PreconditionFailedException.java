@@ -0,0 +1,11 @@
+package com.game.exception;
+
+public class PreconditionFailedException extends Exception {
+
+    public PreconditionFailedException() {
+        super();
+    }
+    public PreconditionFailedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,110 @@
+package com.game.index;
+
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed bitmaps over {@link PlayerColumnStore} row slots, one per race, per profession and per banned value.
+ * Not thread-safe on its own: the column store calls it under its read/write lock.
+ */
+class PlayerBitmapIndex {
+
+    static final byte NULL_ENUM = -1;
+
+    private final RoaringBitmap[] races = bitmaps(Race.values().length);
+    private final RoaringBitmap[] professions = bitmaps(Profession.values().length);
+    private final RoaringBitmap bannedTrue = new RoaringBitmap();
+    private final RoaringBitmap bannedFalse = new RoaringBitmap();
+
+    void add(int row, byte race, byte profession, Boolean banned) {
+        if (race != NULL_ENUM) races[race].add(row);
+        if (profession != NULL_ENUM) professions[profession].add(row);
+        if (banned != null) (banned ? bannedTrue : bannedFalse).add(row);
+    }
+
+    void remove(int row, byte race, byte profession) {
+        if (race != NULL_ENUM) races[race].remove(row);
+        if (profession != NULL_ENUM) professions[profession].remove(row);
+        bannedTrue.remove(row);
+        bannedFalse.remove(row);
+    }
+
+    Boolean banned(int row) {
+        if (bannedTrue.contains(row)) return Boolean.TRUE;
+        if (bannedFalse.contains(row)) return Boolean.FALSE;
+        return null;
+    }
+
+    /**
+     * Rows matching every given equality filter, or null when none of race, profession and banned is set.
+     */
+    RoaringBitmap select(byte race, byte profession, Boolean banned) {
+        List<RoaringBitmap> selected = selected(race, profession, banned);
+        if (selected.isEmpty()) {
+            return null;
+        }
+        RoaringBitmap result = selected.get(0).clone();
+        for (int i = 1; i < selected.size(); i++) {
+            result.and(selected.get(i));
+        }
+        return result;
+    }
+
+    int count(byte race, byte profession, Boolean banned) {
+        List<RoaringBitmap> selected = selected(race, profession, banned);
+        switch (selected.size()) {
+            case 1:
+                return selected.get(0).getCardinality();
+            case 2:
+                return RoaringBitmap.andCardinality(selected.get(0), selected.get(1));
+            default:
+                return RoaringBitmap.andCardinality(RoaringBitmap.and(selected.get(0), selected.get(1)), selected.get(2));
+        }
+    }
+
+    void optimize() {
+        for (RoaringBitmap bitmap : races) bitmap.runOptimize();
+        for (RoaringBitmap bitmap : professions) bitmap.runOptimize();
+        bannedTrue.runOptimize();
+        bannedFalse.runOptimize();
+    }
+
+    void clear() {
+        for (RoaringBitmap bitmap : races) bitmap.clear();
+        for (RoaringBitmap bitmap : professions) bitmap.clear();
+        bannedTrue.clear();
+        bannedFalse.clear();
+    }
+
+    Map<String, Object> getStats() {
+        long bytes = bannedTrue.getSizeInBytes() + bannedFalse.getSizeInBytes();
+        for (RoaringBitmap bitmap : races) bytes += bitmap.getSizeInBytes();
+        for (RoaringBitmap bitmap : professions) bytes += bitmap.getSizeInBytes();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("bitmaps", races.length + professions.length + 2);
+        stats.put("bitmapBytes", bytes);
+        return stats;
+    }
+
+    private List<RoaringBitmap> selected(byte race, byte profession, Boolean banned) {
+        List<RoaringBitmap> selected = new ArrayList<>(3);
+        if (race != NULL_ENUM) selected.add(races[race]);
+        if (profession != NULL_ENUM) selected.add(professions[profession]);
+        if (banned != null) selected.add(banned ? bannedTrue : bannedFalse);
+        return selected;
+    }
+
+    private static RoaringBitmap[] bitmaps(int count) {
+        RoaringBitmap[] bitmaps = new RoaringBitmap[count];
+        for (int i = 0; i < count; i++) {
+            bitmaps[i] = new RoaringBitmap();
+        }
+        return bitmaps;
+    }
+}
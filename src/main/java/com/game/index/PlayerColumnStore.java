@@ -0,0 +1,547 @@
+package com.game.index;
+
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.datasource.ReplicaRouting;
+import com.game.repository.PlayerRepository;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * In-process columnar replica of the player table answering the filtered list/count queries of
+ * {@link com.game.repository.CustomRepo} without a database round trip.
+ * <p>
+ * Rows are append-only slots; a delete only clears the slot's bit in {@code live}. Upserts carry the row's
+ * {@code version} and one older than the stored row is dropped, so post-commit refreshes that arrive out of order,
+ * and the rows {@link #reload()} streams in while writes go on, never roll a row back. Name and title filters are
+ * matched as the LIKE '%x%' the JPA queries send: {@code %} and {@code _} are wildcards, {@code \} escapes, and both
+ * sides are folded like utf8_general_ci folds letters, case and accents dropped, see {@link #searchKey}. Its other
+ * equivalences, such as ß = s, are not modelled. ORDER BY name compares precomputed utf8_general_ci sort keys,
+ * see {@link #collationKey}.
+ */
+@Component
+public class PlayerColumnStore implements InitializingBean {
+
+    private static final int NULL_INT = Integer.MIN_VALUE;
+    private static final long NULL_DATE = Long.MIN_VALUE;
+    private static final long NULL_VERSION = Long.MIN_VALUE;
+    private static final byte NULL_ENUM = PlayerBitmapIndex.NULL_ENUM;
+    private static final Race[] RACES = Race.values();
+    private static final Profession[] PROFESSIONS = Profession.values();
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final PlayerRepository playersRepo;
+    private final boolean enabled;
+    private final int parallelThreshold;
+    private final int fetchSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private volatile boolean loaded;
+    private int size;
+    private long[] ids = new long[0];
+    private long[] versions = new long[0];
+    private String[] names = new String[0];
+    private String[] titles = new String[0];
+    private String[] foldedNames = new String[0];
+    private String[] nameKeys = new String[0];
+    private String[] foldedTitles = new String[0];
+    private byte[] races = new byte[0];
+    private byte[] professions = new byte[0];
+    private long[] birthdays = new long[0];
+    private int[] experiences = new int[0];
+    private int[] levels = new int[0];
+    private int[] untilNextLevels = new int[0];
+    private final BitSet live = new BitSet();
+    private final PlayerBitmapIndex bitmapIndex = new PlayerBitmapIndex();
+    private final PlayerTrigramIndex nameIndex = new PlayerTrigramIndex();
+    private final PlayerTrigramIndex titleIndex = new PlayerTrigramIndex();
+    private final Map<Long, Integer> rowById = new HashMap<>();
+    // non-null while a reload runs: ids removed meanwhile, which the streamed snapshot may still hold
+    private Set<Long> removedDuringReload;
+
+    @Autowired
+    public PlayerColumnStore(PlayerRepository playersRepo,
+                             @Value("${player.index.enabled:false}") boolean enabled,
+                             @Value("${player.index.parallel-threshold:65536}") int parallelThreshold,
+                             @Value("${player.index.fetch-size:1000}") int fetchSize) {
+        this.playersRepo = playersRepo;
+        this.enabled = enabled;
+        this.parallelThreshold = parallelThreshold;
+        this.fetchSize = fetchSize;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    public boolean isActive() {
+        return enabled && loaded;
+    }
+
+    // writes must be applied from startup on, including while the first load runs
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Rebuilds the store from the primary through the forward-only export cursor, applying one fetch at a time,
+     * so neither the table nor its entities are held at once. Queries fall back to JPA until the last fetch is in;
+     * writes keep applying meanwhile, the version check and the removed ids keep the snapshot from undoing them.
+     */
+    public void reload() {
+        reloadLock.lock();
+        try {
+            long start = System.currentTimeMillis();
+            lock.writeLock().lock();
+            try {
+                loaded = false;
+                size = 0;
+                rowById.clear();
+                live.clear();
+                bitmapIndex.clear();
+                nameIndex.clear();
+                titleIndex.clear();
+                removedDuringReload = new HashSet<>();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            List<Player> fetched = new ArrayList<>(fetchSize);
+            try {
+                ReplicaRouting.onPrimary(() -> {
+                    playersRepo.forEachPlayer(null, null, null, null, null, null, null, null, null, null, null,
+                            PlayerOrder.ID, null, null, fetchSize, player -> {
+                                fetched.add(player);
+                                if (fetched.size() == fetchSize) {
+                                    load(fetched);
+                                }
+                            });
+                    return null;
+                });
+                load(fetched);
+            } finally {
+                lock.writeLock().lock();
+                try {
+                    removedDuringReload = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            }
+            int rows;
+            lock.writeLock().lock();
+            try {
+                bitmapIndex.optimize();
+                rows = rowById.size();
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            logger.info(String.format("player column store loaded %d rows in %d ms", rows, System.currentTimeMillis() - start));
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private void load(List<Player> fetched) {
+        lock.writeLock().lock();
+        try {
+            for (Player player : fetched) {
+                if (!removedDuringReload.contains(player.getId())) {
+                    upsertRow(player);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        fetched.clear();
+    }
+
+    public void upsert(Player player) {
+        if (!enabled || player == null || player.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            upsertRow(player);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsertAll(Collection<Player> players) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            for (Player player : players) {
+                upsertRow(player);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeRow(id);
+            if (removedDuringReload != null) {
+                removedDuringReload.add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void removeRow(Long id) {
+        Integer row = rowById.remove(id);
+        if (row != null) {
+            live.clear(row);
+            bitmapIndex.remove(row, races[row], professions[row]);
+            nameIndex.remove(row, foldedNames[row]);
+            titleIndex.remove(row, foldedTitles[row]);
+        }
+    }
+
+    public long count(String name, String title, Race race, Profession profession, Long after, Long before,
+                      Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) {
+        Query query = new Query(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        lock.readLock().lock();
+        try {
+            if (query.isEqualityOnly()) {
+                return bitmapIndex.count(query.race, query.profession, query.banned);
+            }
+            return candidates(query).filter(row -> matches(row, query)).count();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Player> find(String name, String title, Race race, Profession profession, Long after, Long before,
+                             Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                             Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize) {
+        Query query = new Query(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        int pageNumb = pageNumber == null ? 0 : pageNumber;
+        int pageSiz = pageSize == null ? 3 : pageSize;
+        int offset = pageNumb * pageSiz;
+
+        lock.readLock().lock();
+        try {
+            int[] matched = candidates(query).filter(row -> matches(row, query)).toArray();
+            int[] sorted = topRows(matched, comparator(order == null ? PlayerOrder.ID : order), offset + pageSiz);
+
+            List<Player> players = new ArrayList<>();
+            for (int i = offset; i < sorted.length && i < offset + pageSiz; i++) {
+                players.add(toPlayer(sorted[i]));
+            }
+            return players;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        lock.readLock().lock();
+        try {
+            stats.put("rows", rowById.size());
+            stats.put("slots", size);
+            stats.putAll(bitmapIndex.getStats());
+            stats.put("nameTrigrams", nameIndex.size());
+            stats.put("titleTrigrams", titleIndex.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+        return stats;
+    }
+
+    // rows passing the race/profession/banned filters and holding every trigram of the name/title filters,
+    // narrowed through the bitmaps whenever one of them applies
+    private IntStream candidates(Query query) {
+        RoaringBitmap selected = and(bitmapIndex.select(query.race, query.profession, query.banned),
+                and(candidates(nameIndex, query.name), candidates(titleIndex, query.title)));
+        if (selected == null) {
+            if (size >= parallelThreshold) {
+                return IntStream.range(0, size).parallel().filter(live::get);
+            }
+            return live.stream();
+        }
+        IntStream rows = Arrays.stream(selected.toArray());
+        return selected.getCardinality() >= parallelThreshold ? rows.parallel() : rows;
+    }
+
+    // every wildcard-free run of the pattern must occur in a match
+    private static RoaringBitmap candidates(PlayerTrigramIndex index, LikePattern pattern) {
+        if (pattern == null) {
+            return null;
+        }
+        RoaringBitmap result = null;
+        for (String run : pattern.runs) {
+            result = and(result, index.candidates(run));
+        }
+        return result;
+    }
+
+    private static RoaringBitmap and(RoaringBitmap left, RoaringBitmap right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        return RoaringBitmap.and(left, right);
+    }
+
+    // the equality filters are already applied by candidates(), trigram candidates still need the pattern check
+    private boolean matches(int row, Query query) {
+        if (query.minExperience != null && (experiences[row] == NULL_INT || experiences[row] < query.minExperience)) return false;
+        if (query.maxExperience != null && (experiences[row] == NULL_INT || experiences[row] > query.maxExperience)) return false;
+        if (query.minLevel != null && (levels[row] == NULL_INT || levels[row] < query.minLevel)) return false;
+        if (query.maxLevel != null && (levels[row] == NULL_INT || levels[row] > query.maxLevel)) return false;
+        if (query.after != null && (birthdays[row] == NULL_DATE || birthdays[row] < query.after)) return false;
+        if (query.before != null && (birthdays[row] == NULL_DATE || birthdays[row] > query.before)) return false;
+        if (query.name != null && (foldedNames[row] == null || !query.name.matches(foldedNames[row]))) return false;
+        return query.title == null || (foldedTitles[row] != null && query.title.matches(foldedTitles[row]));
+    }
+
+    private Comparator<Integer> comparator(PlayerOrder order) {
+        Comparator<Integer> byId = Comparator.comparingLong(row -> ids[row]);
+        switch (order) {
+            case NAME:
+                return Comparator.<Integer, String>comparing(row -> nameKeys[row], Comparator.nullsFirst(Comparator.naturalOrder())).thenComparing(byId);
+            case EXPERIENCE:
+                return Comparator.<Integer>comparingInt(row -> experiences[row]).thenComparing(byId);
+            case LEVEL:
+                return Comparator.<Integer>comparingInt(row -> levels[row]).thenComparing(byId);
+            case BIRTHDAY:
+                return Comparator.<Integer>comparingLong(row -> birthdays[row]).thenComparing(byId);
+            default:
+                return byId;
+        }
+    }
+
+    // keeps only the first `limit` rows in order, so shallow pages over large matches cost O(n log limit)
+    private int[] topRows(int[] matched, Comparator<Integer> comparator, int limit) {
+        if (limit <= 0) {
+            return new int[0];
+        }
+        if (limit >= matched.length) {
+            return Arrays.stream(matched).boxed().sorted(comparator).mapToInt(Integer::intValue).toArray();
+        }
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, comparator.reversed());
+        for (int row : matched) {
+            heap.offer(row);
+            if (heap.size() > limit) {
+                heap.poll();
+            }
+        }
+        return heap.stream().sorted(comparator).mapToInt(Integer::intValue).toArray();
+    }
+
+    private void upsertRow(Player player) {
+        Integer row = rowById.get(player.getId());
+        long version = player.getVersion() == null ? NULL_VERSION : player.getVersion();
+        if (row != null && version != NULL_VERSION && version < versions[row]) {
+            return;
+        }
+        if (row == null) {
+            ensureCapacity(size + 1);
+            row = size++;
+            rowById.put(player.getId(), row);
+        } else {
+            bitmapIndex.remove(row, races[row], professions[row]);
+            nameIndex.remove(row, foldedNames[row]);
+            titleIndex.remove(row, foldedTitles[row]);
+        }
+        ids[row] = player.getId();
+        versions[row] = version;
+        names[row] = player.getName();
+        titles[row] = player.getTitle();
+        foldedNames[row] = searchKey(player.getName());
+        nameKeys[row] = collationKey(player.getName());
+        foldedTitles[row] = searchKey(player.getTitle());
+        races[row] = player.getRace() == null ? NULL_ENUM : (byte) player.getRace().ordinal();
+        professions[row] = player.getProfession() == null ? NULL_ENUM : (byte) player.getProfession().ordinal();
+        birthdays[row] = player.getBirthday() == null ? NULL_DATE : startOfDay(player.getBirthday());
+        experiences[row] = player.getExperience() == null ? NULL_INT : player.getExperience();
+        levels[row] = player.getLevel() == null ? NULL_INT : player.getLevel();
+        untilNextLevels[row] = player.getUntilNextLevel() == null ? NULL_INT : player.getUntilNextLevel();
+        bitmapIndex.add(row, races[row], professions[row], player.getBanned());
+        nameIndex.add(row, foldedNames[row]);
+        titleIndex.add(row, foldedTitles[row]);
+        live.set(row);
+    }
+
+    // the birthday column is a DATE: a time of day in the request is gone once the row is read back
+    private static long startOfDay(Date birthday) {
+        ZoneId zone = ZoneId.systemDefault();
+        return Instant.ofEpochMilli(birthday.getTime()).atZone(zone).toLocalDate().atStartOfDay(zone).toInstant().toEpochMilli();
+    }
+
+    // what LIKE compares under utf8_general_ci: accents dropped and case folded, one character for one,
+    // and unlike collationKey trailing spaces kept, since LIKE does not pad
+    static String searchKey(String value) {
+        if (value == null) {
+            return null;
+        }
+        return COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    // utf8_general_ci compares one weight per character: letters folded to upper case without accents,
+    // trailing spaces ignored (PAD SPACE); ordering the folded strings by code unit gives the same order
+    static String collationKey(String value) {
+        if (value == null) {
+            return null;
+        }
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        int end = folded.length();
+        while (end > 0 && folded.charAt(end - 1) == ' ') {
+            end--;
+        }
+        return folded.substring(0, end).toUpperCase(Locale.ROOT);
+    }
+
+    private Player toPlayer(int row) {
+        Player player = new Player(ids[row], names[row], titles[row],
+                races[row] == NULL_ENUM ? null : RACES[races[row]],
+                professions[row] == NULL_ENUM ? null : PROFESSIONS[professions[row]],
+                birthdays[row] == NULL_DATE ? null : new Date(birthdays[row]),
+                bitmapIndex.banned(row),
+                experiences[row] == NULL_INT ? null : experiences[row],
+                levels[row] == NULL_INT ? null : levels[row],
+                untilNextLevels[row] == NULL_INT ? null : untilNextLevels[row]);
+        player.setVersion(versions[row] == NULL_VERSION ? null : versions[row]);
+        return player;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= ids.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, ids.length + (ids.length >> 1) + 16);
+        ids = Arrays.copyOf(ids, newCapacity);
+        versions = Arrays.copyOf(versions, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        titles = Arrays.copyOf(titles, newCapacity);
+        foldedNames = Arrays.copyOf(foldedNames, newCapacity);
+        nameKeys = Arrays.copyOf(nameKeys, newCapacity);
+        foldedTitles = Arrays.copyOf(foldedTitles, newCapacity);
+        races = Arrays.copyOf(races, newCapacity);
+        professions = Arrays.copyOf(professions, newCapacity);
+        birthdays = Arrays.copyOf(birthdays, newCapacity);
+        experiences = Arrays.copyOf(experiences, newCapacity);
+        levels = Arrays.copyOf(levels, newCapacity);
+        untilNextLevels = Arrays.copyOf(untilNextLevels, newCapacity);
+    }
+
+    private static class Query {
+        private final LikePattern name;
+        private final LikePattern title;
+        private final byte race;
+        private final byte profession;
+        private final Long after;
+        private final Long before;
+        private final Boolean banned;
+        private final Integer minExperience;
+        private final Integer maxExperience;
+        private final Integer minLevel;
+        private final Integer maxLevel;
+
+        private Query(String name, String title, Race race, Profession profession, Long after, Long before,
+                      Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) {
+            this.name = name == null ? null : new LikePattern(searchKey(name));
+            this.title = title == null ? null : new LikePattern(searchKey(title));
+            this.race = race == null ? NULL_ENUM : (byte) race.ordinal();
+            this.profession = profession == null ? NULL_ENUM : (byte) profession.ordinal();
+            this.after = after;
+            this.before = before;
+            this.banned = banned;
+            this.minExperience = minExperience;
+            this.maxExperience = maxExperience;
+            this.minLevel = minLevel;
+            this.maxLevel = maxLevel;
+        }
+
+        private boolean isEqualityOnly() {
+            boolean hasEquality = race != NULL_ENUM || profession != NULL_ENUM || banned != null;
+            return hasEquality && name == null && title == null && after == null && before == null
+                    && minExperience == null && maxExperience == null && minLevel == null && maxLevel == null;
+        }
+    }
+
+    // the body x of LIKE '%x%' with MySQL's default escape character
+    private static class LikePattern {
+        private final String literal;
+        private final Pattern regex;
+        private final List<String> runs = new ArrayList<>();
+
+        private LikePattern(String pattern) {
+            StringBuilder regex = new StringBuilder();
+            StringBuilder run = new StringBuilder();
+            boolean wildcards = false;
+            for (int i = 0; i < pattern.length(); i++) {
+                char c = pattern.charAt(i);
+                if (c == '\\' && i + 1 < pattern.length()) {
+                    wildcards = true;
+                    run.append(pattern.charAt(++i));
+                } else if (c == '%' || c == '_') {
+                    wildcards = true;
+                    endRun(run, regex);
+                    regex.append(c == '%' ? ".*" : ".");
+                } else {
+                    run.append(c);
+                }
+            }
+            endRun(run, regex);
+            this.literal = wildcards ? null : pattern;
+            this.regex = wildcards ? Pattern.compile(regex.toString(), Pattern.DOTALL) : null;
+        }
+
+        private void endRun(StringBuilder run, StringBuilder regex) {
+            if (run.length() > 0) {
+                runs.add(run.toString());
+                regex.append(Pattern.quote(run.toString()));
+                run.setLength(0);
+            }
+        }
+
+        private boolean matches(String folded) {
+            return literal != null ? folded.contains(literal) : regex.matcher(folded).find();
+        }
+    }
+}
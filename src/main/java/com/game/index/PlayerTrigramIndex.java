@@ -0,0 +1,79 @@
+package com.game.index;
+
+import org.roaringbitmap.RoaringBitmap;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Inverted index from character trigrams of a folded text column to {@link PlayerColumnStore} row slots.
+ * It only narrows the candidate rows: the column store asks it for each wildcard-free run of a LIKE
+ * pattern and still checks every candidate against the whole pattern. Runs shorter than three
+ * characters cannot be narrowed and fall back to a scan.
+ * Not thread-safe on its own: the column store calls it under its read/write lock.
+ */
+class PlayerTrigramIndex {
+
+    private static final int GRAM = 3;
+
+    private final Map<Long, RoaringBitmap> postings = new HashMap<>();
+
+    void add(int row, String foldedText) {
+        for (Long trigram : trigrams(foldedText)) {
+            postings.computeIfAbsent(trigram, key -> new RoaringBitmap()).add(row);
+        }
+    }
+
+    void remove(int row, String foldedText) {
+        for (Long trigram : trigrams(foldedText)) {
+            RoaringBitmap rows = postings.get(trigram);
+            if (rows != null) {
+                rows.remove(row);
+                if (rows.isEmpty()) {
+                    postings.remove(trigram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Rows that contain every trigram of the run, or null when the run is too short to use the index.
+     * The returned bitmap may be shared with the index and must not be modified.
+     */
+    RoaringBitmap candidates(String run) {
+        if (run == null || run.length() < GRAM) {
+            return null;
+        }
+        RoaringBitmap result = null;
+        for (Long trigram : trigrams(run)) {
+            RoaringBitmap rows = postings.get(trigram);
+            if (rows == null) {
+                return new RoaringBitmap();
+            }
+            result = result == null ? rows : RoaringBitmap.and(result, rows);
+        }
+        return result;
+    }
+
+    void clear() {
+        postings.clear();
+    }
+
+    int size() {
+        return postings.size();
+    }
+
+    // each trigram is three UTF-16 chars packed into one long, which covers Cyrillic and the rest of the BMP
+    private static Set<Long> trigrams(String text) {
+        Set<Long> trigrams = new LinkedHashSet<>();
+        if (text == null) {
+            return trigrams;
+        }
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            trigrams.add(((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2));
+        }
+        return trigrams;
+    }
+}
@@ -0,0 +1,42 @@
+package com.game.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lock-free latency histogram in microseconds. Writers record into an HdrHistogram {@link Recorder};
+ * readers fold the recorded interval into a cumulative histogram.
+ */
+public class LatencyRecorder {
+
+    private final Recorder recorder = new Recorder(3);
+    private final Histogram total = new Histogram(3);
+    private Histogram interval;
+
+    public void recordNanos(long nanos) {
+        recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos)));
+    }
+
+    public synchronized Histogram snapshot() {
+        interval = recorder.getIntervalHistogram(interval);
+        total.add(interval);
+        return total.copy();
+    }
+
+    public Map<String, Object> summary() {
+        Histogram histogram = snapshot();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", histogram.getTotalCount());
+        summary.put("meanMicros", histogram.getMean());
+        summary.put("p50Micros", histogram.getValueAtPercentile(50));
+        summary.put("p90Micros", histogram.getValueAtPercentile(90));
+        summary.put("p99Micros", histogram.getValueAtPercentile(99));
+        summary.put("p999Micros", histogram.getValueAtPercentile(99.9));
+        summary.put("maxMicros", histogram.getMaxValue());
+        return summary;
+    }
+}
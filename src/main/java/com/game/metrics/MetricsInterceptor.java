@@ -0,0 +1,61 @@
+package com.game.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Times every handled request and records it under "METHOD /mapping/{pattern}". The timing lives in a
+ * request attribute so an async request is measured from its first dispatch to the end of the last one.
+ */
+@Component
+public class MetricsInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private static final String TIMING_ATTRIBUTE = MetricsInterceptor.class.getName() + ".timing";
+
+    private final RequestMetrics metrics;
+
+    @Autowired
+    public MetricsInterceptor(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    static RequestTiming timingOf(HttpServletRequest request) {
+        return (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTiming timing = (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+        if (timing == null) {
+            timing = new RequestTiming();
+            request.setAttribute(TIMING_ATTRIBUTE, timing);
+        }
+        RequestTiming.bind(timing);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestTiming.unbind();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestTiming timing = (RequestTiming) request.getAttribute(TIMING_ATTRIBUTE);
+        RequestTiming.unbind();
+        if (timing == null) {
+            return;
+        }
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern == null ? request.getRequestURI() : pattern);
+        int status = ex != null && response.getStatus() < 400 ? 500 : response.getStatus();
+        metrics.recordRequest(endpoint, status, ex != null || status >= 500, timing.elapsedNanos());
+    }
+}
@@ -0,0 +1,81 @@
+package com.game.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects per-pool statistics from HikariCP: connection counts, threads waiting for a connection,
+ * acquire-time histogram, usage-time histogram and acquisition timeouts.
+ */
+@Component
+public class PoolMetrics implements MetricsTrackerFactory {
+
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        Tracker tracker = new Tracker(poolStats);
+        trackers.put(poolName, tracker);
+        return tracker;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        trackers.forEach((poolName, tracker) -> stats.put(poolName, tracker.getStats()));
+        return stats;
+    }
+
+    private static class Tracker implements IMetricsTracker {
+        private final PoolStats poolStats;
+        private final LatencyRecorder acquire = new LatencyRecorder();
+        private final LatencyRecorder usage = new LatencyRecorder();
+        private final LongAdder created = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+
+        private Tracker(PoolStats poolStats) {
+            this.poolStats = poolStats;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            created.increment();
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            acquire.recordNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            usage.recordNanos(elapsedBorrowedMillis * 1_000_000L);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            timeouts.increment();
+        }
+
+        private Map<String, Object> getStats() {
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("active", poolStats.getActiveConnections());
+            stats.put("idle", poolStats.getIdleConnections());
+            stats.put("total", poolStats.getTotalConnections());
+            stats.put("waiters", poolStats.getPendingThreads());
+            stats.put("min", poolStats.getMinConnections());
+            stats.put("max", poolStats.getMaxConnections());
+            stats.put("created", created.sum());
+            stats.put("timeouts", timeouts.sum());
+            stats.put("acquire", acquire.summary());
+            stats.put("usage", usage.summary());
+            return stats;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.game.metrics;
+
+import com.game.repository.PlayerRepository;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Wraps the PlayerRepository proxy so every call, transaction included, is timed per method and
+ * counted as db time of the current request.
+ */
+@Component
+public class RepositoryTimingPostProcessor implements BeanPostProcessor {
+
+    private final RequestMetrics metrics;
+
+    @Autowired
+    public RepositoryTimingPostProcessor(RequestMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof PlayerRepository)) {
+            return bean;
+        }
+        ProxyFactory proxyFactory = new ProxyFactory();
+        proxyFactory.setTarget(bean);
+        proxyFactory.addInterface(PlayerRepository.class);
+        proxyFactory.addAdvice((MethodInterceptor) invocation -> {
+            long start = System.nanoTime();
+            try {
+                return invocation.proceed();
+            } finally {
+                metrics.recordRepositoryCall(invocation.getMethod().getName(), System.nanoTime() - start);
+            }
+        });
+        return proxyFactory.getProxy();
+    }
+}
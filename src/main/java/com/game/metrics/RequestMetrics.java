@@ -0,0 +1,102 @@
+package com.game.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latency histograms per REST endpoint, per repository method and for JSON serialization, plus response
+ * status and error counts per endpoint. {@link #scrape()} renders them in the Prometheus text format.
+ */
+@Component
+public class RequestMetrics {
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LatencyRecorder> repositoryCalls = new ConcurrentHashMap<>();
+    private final LatencyRecorder serialization = new LatencyRecorder();
+
+    public void recordRequest(String endpoint, int status, boolean failed, long nanos) {
+        EndpointStats stats = endpoints.computeIfAbsent(endpoint, key -> new EndpointStats());
+        stats.latency.recordNanos(nanos);
+        stats.statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (failed) {
+            stats.errors.increment();
+        }
+    }
+
+    public void recordRepositoryCall(String method, long nanos) {
+        repositoryCalls.computeIfAbsent(method, key -> new LatencyRecorder()).recordNanos(nanos);
+        RequestTiming.addDb(nanos);
+    }
+
+    public void recordSerialization(long nanos) {
+        serialization.recordNanos(nanos);
+        RequestTiming.addSerialize(nanos);
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+
+        out.append("# HELP http_server_requests_seconds REST request latency by endpoint.\n");
+        out.append("# TYPE http_server_requests_seconds summary\n");
+        new TreeMap<>(endpoints).forEach((endpoint, stats) ->
+                summary(out, "http_server_requests_seconds", "endpoint", endpoint, stats.latency.snapshot()));
+
+        out.append("# HELP http_server_responses_total REST responses by endpoint and status.\n");
+        out.append("# TYPE http_server_responses_total counter\n");
+        new TreeMap<>(endpoints).forEach((endpoint, stats) ->
+                new TreeMap<>(stats.statuses).forEach((status, count) ->
+                        out.append("http_server_responses_total{endpoint=\"").append(escape(endpoint))
+                                .append("\",status=\"").append(status).append("\"} ").append(count.sum()).append('\n')));
+
+        out.append("# HELP http_server_errors_total REST requests that ended in a 5xx status or an exception.\n");
+        out.append("# TYPE http_server_errors_total counter\n");
+        new TreeMap<>(endpoints).forEach((endpoint, stats) ->
+                out.append("http_server_errors_total{endpoint=\"").append(escape(endpoint)).append("\"} ")
+                        .append(stats.errors.sum()).append('\n'));
+
+        out.append("# HELP repository_call_seconds PlayerRepository call latency by method, transaction included.\n");
+        out.append("# TYPE repository_call_seconds summary\n");
+        new TreeMap<>(repositoryCalls).forEach((method, latency) ->
+                summary(out, "repository_call_seconds", "method", method, latency.snapshot()));
+
+        out.append("# HELP json_serialization_seconds Time spent writing JSON response bodies.\n");
+        out.append("# TYPE json_serialization_seconds summary\n");
+        summary(out, "json_serialization_seconds", null, null, serialization.snapshot());
+        return out.toString();
+    }
+
+    private static void summary(StringBuilder out, String name, String label, String value, Histogram micros) {
+        String labels = label == null ? "" : label + "=\"" + escape(value) + "\"";
+        for (double quantile : QUANTILES) {
+            out.append(name).append('{').append(labels).append(labels.isEmpty() ? "" : ",")
+                    .append("quantile=\"").append(quantile).append("\"} ")
+                    .append(seconds(micros.getValueAtPercentile(quantile * 100))).append('\n');
+        }
+        String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+        out.append(name).append("_sum").append(suffix).append(' ')
+                .append(seconds(micros.getMean() * micros.getTotalCount())).append('\n');
+        out.append(name).append("_count").append(suffix).append(' ').append(micros.getTotalCount()).append('\n');
+    }
+
+    private static String seconds(double micros) {
+        return String.valueOf(micros / 1e6);
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static class EndpointStats {
+        private final LatencyRecorder latency = new LatencyRecorder();
+        private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,75 @@
+package com.game.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.Callable;
+
+/**
+ * Time spent by the current request in the database and in serialization. Bound to the handling thread by
+ * {@link MetricsInterceptor}; calls made outside a request (scheduled flushes, imports) find no timing
+ * and are only recorded in the global histograms.
+ */
+public final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private volatile long dbNanos;
+    private volatile long serializeNanos;
+
+    public static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    public static void addDb(long nanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.dbNanos += nanos;
+        }
+    }
+
+    public static void addSerialize(long nanos) {
+        RequestTiming timing = CURRENT.get();
+        if (timing != null) {
+            timing.serializeNanos += nanos;
+        }
+    }
+
+    /**
+     * The task with the calling thread's timing bound while it runs, so work handed to another thread
+     * is still charged to the request.
+     */
+    public static <T> Callable<T> propagate(Callable<T> task) {
+        RequestTiming timing = CURRENT.get();
+        if (timing == null) {
+            return task;
+        }
+        return () -> {
+            bind(timing);
+            try {
+                return task.call();
+            } finally {
+                unbind();
+            }
+        };
+    }
+
+    static void bind(RequestTiming timing) {
+        CURRENT.set(timing);
+    }
+
+    static void unbind() {
+        CURRENT.remove();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Value for the Server-Timing response header, durations in milliseconds.
+     */
+    public String toServerTiming() {
+        return String.format(Locale.ROOT, "db;dur=%.3f, serialize;dur=%.3f, total;dur=%.3f",
+                dbNanos / 1e6, serializeNanos / 1e6, elapsedNanos() / 1e6);
+    }
+}
@@ -0,0 +1,87 @@
+package com.game.metrics;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Adds the Server-Timing header of the request timing kept by {@link MetricsInterceptor} to every response,
+ * with or without a body: just before the response commits, or when the request ends without committing it.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ServerTimingResponse timedResponse = new ServerTimingResponse(request, response);
+        chain.doFilter(request, timedResponse);
+        if (!request.isAsyncStarted()) {
+            timedResponse.setServerTiming();
+        }
+    }
+
+    private static final class ServerTimingResponse extends HttpServletResponseWrapper {
+
+        private final HttpServletRequest request;
+
+        private ServerTimingResponse(HttpServletRequest request, HttpServletResponse response) {
+            super(response);
+            this.request = request;
+        }
+
+        private void setServerTiming() {
+            RequestTiming timing = MetricsInterceptor.timingOf(request);
+            if (timing != null && !isCommitted()) {
+                setHeader(MetricsInterceptor.SERVER_TIMING_HEADER, timing.toServerTiming());
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            setServerTiming();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            setServerTiming();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            setServerTiming();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            setServerTiming();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            setServerTiming();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            setServerTiming();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.game.metrics;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Statement shapes executed by the current thread between {@link #start()} and {@link #close()}, in order.
+ * Meant for tests that pin the number of statements a request may issue, so N+1 selects and double
+ * fetches show up as failures. Statements run on other threads (async writers, scheduled flushes) are not seen.
+ */
+public final class SqlCapture implements AutoCloseable {
+
+    private static final ThreadLocal<SqlCapture> CURRENT = new ThreadLocal<>();
+
+    private final List<String> statements = new ArrayList<>();
+    private final SqlCapture outer;
+
+    private SqlCapture(SqlCapture outer) {
+        this.outer = outer;
+    }
+
+    public static SqlCapture start() {
+        SqlCapture capture = new SqlCapture(CURRENT.get());
+        CURRENT.set(capture);
+        return capture;
+    }
+
+    static void record(String shape) {
+        for (SqlCapture capture = CURRENT.get(); capture != null; capture = capture.outer) {
+            capture.statements.add(shape);
+        }
+    }
+
+    public List<String> getStatements() {
+        return Collections.unmodifiableList(statements);
+    }
+
+    public int count() {
+        return statements.size();
+    }
+
+    public long count(String prefix) {
+        return statements.stream().filter(shape -> shape.regionMatches(true, 0, prefix, 0, prefix.length())).count();
+    }
+
+    @Override
+    public void close() {
+        if (outer == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(outer);
+        }
+    }
+}
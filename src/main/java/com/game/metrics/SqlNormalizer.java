@@ -0,0 +1,96 @@
+package com.game.metrics;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Reduces a SQL statement to its shape: string and numeric literals become ?, lists of placeholders
+ * collapse to (?...) and whitespace is squeezed, so statements that differ only in their values
+ * are aggregated together.
+ */
+final class SqlNormalizer {
+
+    private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\?(?:, \\?)+\\)");
+    private static final int MAX_CACHED = 4096;
+
+    // Hibernate and the repository only ever send a bounded set of parameterized strings
+    private static final ConcurrentMap<String, String> CACHE = new ConcurrentHashMap<>();
+
+    private SqlNormalizer() {
+    }
+
+    static String normalize(String sql) {
+        if (sql == null) {
+            return "";
+        }
+        String shape = CACHE.get(sql);
+        if (shape == null) {
+            shape = PLACEHOLDER_LIST.matcher(stripLiterals(sql)).replaceAll("(?...)");
+            if (CACHE.size() < MAX_CACHED) {
+                CACHE.put(sql, shape);
+            }
+        }
+        return shape;
+    }
+
+    private static String stripLiterals(String sql) {
+        StringBuilder out = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                i++;
+                out.append('?');
+            } else if (Character.isDigit(c) && !partOfWord(out)) {
+                while (i < length && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                out.append('?');
+            } else if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (out.length() > 0 && i < length && out.charAt(out.length() - 1) != '(') {
+                    out.append(' ');
+                }
+            } else {
+                // no space before a comma or a closing parenthesis keeps placeholder lists uniform
+                if ((c == ',' || c == ')') && out.length() > 0 && out.charAt(out.length() - 1) == ' ') {
+                    out.setLength(out.length() - 1);
+                }
+                if (c == ',') {
+                    out.append(", ");
+                    i++;
+                    while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                        i++;
+                    }
+                    continue;
+                }
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private static boolean partOfWord(StringBuilder out) {
+        if (out.length() == 0) {
+            return false;
+        }
+        char previous = out.charAt(out.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '.' || previous == '`' || previous == '"';
+    }
+}
@@ -0,0 +1,121 @@
+package com.game.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-shape statistics of every statement sent through the DataSource: calls, errors, total and max execution
+ * time, rows read or written and the connection-wait time of the connection the shape was first to use.
+ * Shapes come from {@link SqlNormalizer}; past db.statement-stats.max-shapes distinct shapes the rest are
+ * counted under {@link #OTHER_SHAPE}.
+ */
+@Component
+public class SqlStatementStats {
+
+    static final String OTHER_SHAPE = "(other)";
+
+    private final ConcurrentMap<String, ShapeStats> shapes = new ConcurrentHashMap<>();
+    private final int maxShapes;
+
+    // read from the Environment: this bean is created with the post-processors, before @Value is resolvable
+    @Autowired
+    public SqlStatementStats(Environment env) {
+        this.maxShapes = env.getProperty("db.statement-stats.max-shapes", Integer.class, 1000);
+    }
+
+    ShapeStats shape(String sql) {
+        String shape = SqlNormalizer.normalize(sql);
+        ShapeStats stats = shapes.get(shape);
+        if (stats == null) {
+            if (shapes.size() >= maxShapes) {
+                shape = OTHER_SHAPE;
+            }
+            stats = shapes.computeIfAbsent(shape, ShapeStats::new);
+        }
+        return stats;
+    }
+
+    void record(ShapeStats stats, long nanos, long rows, long connectionWaitNanos, boolean failed) {
+        stats.calls.increment();
+        stats.totalNanos.add(nanos);
+        stats.maxNanos.accumulateAndGet(nanos, Math::max);
+        stats.rows.add(rows);
+        stats.connectionWaitNanos.add(connectionWaitNanos);
+        if (failed) {
+            stats.errors.increment();
+        }
+        SqlCapture.record(stats.shape);
+    }
+
+    void addRows(ShapeStats stats, long rows) {
+        stats.rows.add(rows);
+    }
+
+    public void reset() {
+        shapes.clear();
+    }
+
+    /**
+     * Shapes ordered by total execution time, the most expensive first.
+     */
+    public Map<String, Object> getStats(int limit) {
+        List<ShapeStats> ordered = new ArrayList<>(shapes.values());
+        ordered.sort(Comparator.comparingLong((ShapeStats stats) -> stats.totalNanos.sum()).reversed());
+
+        long statements = 0;
+        List<Map<String, Object>> top = new ArrayList<>();
+        for (ShapeStats stats : ordered) {
+            statements += stats.calls.sum();
+            if (top.size() < limit) {
+                top.add(stats.toMap());
+            }
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("shapes", ordered.size());
+        result.put("statements", statements);
+        result.put("top", top);
+        return result;
+    }
+
+    static final class ShapeStats {
+        private final String shape;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder connectionWaitNanos = new LongAdder();
+
+        private ShapeStats(String shape) {
+            this.shape = shape;
+        }
+
+        private Map<String, Object> toMap() {
+            long calls = this.calls.sum();
+            long total = totalNanos.sum();
+            long rows = this.rows.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("sql", shape);
+            map.put("calls", calls);
+            map.put("errors", errors.sum());
+            map.put("totalMs", total / 1e6);
+            map.put("meanMs", calls == 0 ? 0.0 : total / 1e6 / calls);
+            map.put("maxMs", maxNanos.get() / 1e6);
+            map.put("rows", rows);
+            map.put("rowsPerCall", calls == 0 ? 0.0 : (double) rows / calls);
+            map.put("connectionWaitMs", connectionWaitNanos.sum() / 1e6);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.game.metrics;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+/**
+ * Wraps the DataSource in JDBC proxies that feed {@link SqlStatementStats}: connection acquisition is timed,
+ * every execute call is timed under its statement's shape and rows are counted as the result set is read.
+ * The DataSource proxy keeps all interfaces of the pool, so close()/shutdown() still work as destroy methods.
+ * Disabled with db.statement-stats.enabled=false.
+ */
+@Component
+public class StatementStatsPostProcessor implements BeanPostProcessor {
+
+    private final SqlStatementStats stats;
+    private final boolean enabled;
+
+    @Autowired
+    public StatementStatsPostProcessor(SqlStatementStats stats, Environment env) {
+        this.stats = stats;
+        this.enabled = env.getProperty("db.statement-stats.enabled", Boolean.class, true);
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!enabled || !(bean instanceof DataSource) || Proxy.isProxyClass(bean.getClass())
+                && Proxy.getInvocationHandler(bean) instanceof DataSourceHandler) {
+            return bean;
+        }
+        return Proxy.newProxyInstance(bean.getClass().getClassLoader(),
+                ClassUtils.getAllInterfacesForClass(bean.getClass()), new DataSourceHandler(bean));
+    }
+
+    // proxies compare by identity: Hibernate keys its statement and result set registries by them
+    private static Object invoke(Object proxy, Object target, Method method, Object[] args) throws Throwable {
+        if (method.getName().equals("equals") && method.getParameterCount() == 1) {
+            return proxy == args[0];
+        }
+        if (method.getName().equals("hashCode") && method.getParameterCount() == 0) {
+            return System.identityHashCode(proxy);
+        }
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+
+    private final class DataSourceHandler implements InvocationHandler {
+        private final Object target;
+
+        private DataSourceHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            if (!method.getName().equals("getConnection")) {
+                return StatementStatsPostProcessor.invoke(proxy, target, method, args);
+            }
+            long start = System.nanoTime();
+            Connection connection = (Connection) StatementStatsPostProcessor.invoke(proxy, target, method, args);
+            return Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                    new ConnectionHandler(connection, System.nanoTime() - start));
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        private long pendingWaitNanos;
+
+        private ConnectionHandler(Connection target, long waitNanos) {
+            this.target = target;
+            this.pendingWaitNanos = waitNanos;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementStatsPostProcessor.invoke(proxy, target, method, args);
+            switch (method.getName()) {
+                case "prepareStatement":
+                    return statement(PreparedStatement.class, result, (String) args[0]);
+                case "prepareCall":
+                    return statement(CallableStatement.class, result, (String) args[0]);
+                case "createStatement":
+                    return statement(Statement.class, result, null);
+                default:
+                    return result;
+            }
+        }
+
+        private Object statement(Class<? extends Statement> type, Object statement, String sql) {
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    new StatementHandler(this, (Statement) statement, sql));
+        }
+
+        // the acquire wait is charged to the first statement run on the connection
+        private long takeWaitNanos() {
+            long waitNanos = pendingWaitNanos;
+            pendingWaitNanos = 0;
+            return waitNanos;
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final ConnectionHandler connection;
+        private final Statement target;
+        private String sql;
+        private SqlStatementStats.ShapeStats shape;
+
+        private StatementHandler(ConnectionHandler connection, Statement target, String sql) {
+            this.connection = connection;
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("addBatch") && args != null && args.length == 1 && sql == null) {
+                sql = (String) args[0];
+            }
+            if (name.equals("getResultSet")) {
+                Object resultSet = StatementStatsPostProcessor.invoke(proxy, target, method, args);
+                return resultSet == null || shape == null ? resultSet : resultSet((ResultSet) resultSet);
+            }
+            if (!name.startsWith("execute")) {
+                return StatementStatsPostProcessor.invoke(proxy, target, method, args);
+            }
+
+            if (args != null && args.length > 0 && args[0] instanceof String) {
+                sql = (String) args[0];
+            }
+            shape = stats.shape(sql);
+            long waitNanos = connection.takeWaitNanos();
+            long start = System.nanoTime();
+            Object result;
+            try {
+                result = StatementStatsPostProcessor.invoke(proxy, target, method, args);
+            } catch (Throwable e) {
+                stats.record(shape, System.nanoTime() - start, 0, waitNanos, true);
+                throw e;
+            }
+            stats.record(shape, System.nanoTime() - start, updatedRows(result), waitNanos, false);
+            return result instanceof ResultSet ? resultSet((ResultSet) result) : result;
+        }
+
+        private Object resultSet(ResultSet resultSet) {
+            return Proxy.newProxyInstance(ResultSet.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(resultSet, shape));
+        }
+    }
+
+    private static long updatedRows(Object result) {
+        long rows = 0;
+        if (result instanceof Number) {
+            rows = ((Number) result).longValue();
+        } else if (result instanceof int[]) {
+            for (int count : (int[]) result) rows += Math.max(count, 0);
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) rows += Math.max(count, 0);
+        }
+        return rows;
+    }
+
+    private final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final SqlStatementStats.ShapeStats shape;
+        private long rows;
+
+        private ResultSetHandler(ResultSet target, SqlStatementStats.ShapeStats shape) {
+            this.target = target;
+            this.shape = shape;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.equals("next")) {
+                boolean next = (Boolean) StatementStatsPostProcessor.invoke(proxy, target, method, args);
+                if (next) {
+                    rows++;
+                } else {
+                    flushRows();
+                }
+                return next;
+            }
+            if (name.equals("close")) {
+                flushRows();
+            }
+            return StatementStatsPostProcessor.invoke(proxy, target, method, args);
+        }
+
+        private void flushRows() {
+            if (rows > 0) {
+                stats.addRows(shape, rows);
+                rows = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.game.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Serializes into a buffer first so the time spent in Jackson is measured before the first body byte goes out,
+ * which is when {@link ServerTimingFilter} sets the Server-Timing header. Lists are bounded by
+ * player.list.max-page-size; larger results are streamed and bypass this converter.
+ */
+public class TimingJsonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final RequestMetrics metrics;
+
+    public TimingJsonHttpMessageConverter(ObjectMapper objectMapper, RequestMetrics metrics) {
+        super(objectMapper);
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage) throws IOException {
+        long start = System.nanoTime();
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(1024);
+        super.writeInternal(object, type, new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return buffer;
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return outputMessage.getHeaders();
+            }
+        });
+        metrics.recordSerialization(System.nanoTime() - start);
+
+        outputMessage.getHeaders().setContentLength(buffer.size());
+        buffer.writeTo(outputMessage.getBody());
+    }
+}
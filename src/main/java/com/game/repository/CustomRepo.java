@@ -1,11 +1,19 @@
 package com.game.repository;
 
+import com.game.controller.PlayerCursor;
+import com.game.controller.PlayerField;
 import com.game.controller.PlayerOrder;
+import com.game.dto.PlayersPage;
+import com.game.dto.PlayersUpdate;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface CustomRepo {
 
@@ -13,8 +21,53 @@ public interface CustomRepo {
                                    Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
                                    Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize);
 
+    public List<Map<String, Object>> getPlayerFields(String name, String title, Race race, Profession profession, Long after, Long before,
+                                                     Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                                                     Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize,
+                                                     Set<PlayerField> fields);
+
+    public PlayersPage getPlayersPage(String name, String title, Race race, Profession profession, Long after, Long before,
+                                      Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                                      Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize);
+
+    public List<Player> getPlayersAfter(String name, String title, Race race, Profession profession, Long after, Long before,
+                                        Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                                        Integer maxLevel, PlayerOrder order, PlayerCursor cursor, Integer pageSize);
+
     public Long getPlayersCount(String name, String title, Race race, Profession profession, Long after, Long before,
                                 Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
                                 Integer maxLevel);
+    public void forEachPlayer(String name, String title, Race race, Profession profession, Long after, Long before,
+                              Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                              PlayerOrder order, Integer pageNumber, Integer pageSize, int fetchSize, Consumer<Player> action);
+
+    public Long getChunkEndId(String name, String title, Race race, Profession profession, Long after, Long before,
+                              Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                              Long afterId, int chunkSize);
+
+    public int updatePlayers(String name, String title, Race race, Profession profession, Long after, Long before,
+                             Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                             PlayersUpdate update, Long afterId, Long toId);
+
+    public int updatePlayer(Long id, Player changes, Set<Long> expectedVersions);
+
+    public List<Player> insertPlayers(List<Player> players, int batchSize);
+
+    public Player savePlayer(Player player);
+
+    public int addExperience(Map<Long, Long> deltas, int batchSize);
+
+    public List<Long> getPlayerIdsAfter(String name, String title, Race race, Profession profession, Long after, Long before,
+                                        Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                                        Long afterId, int limit);
+
+    public int deletePlayers(String name, String title, Race race, Profession profession, Long after, Long before,
+                             Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                             Collection<Long> ids);
+
     public Integer deletePlayerById(Long id);
+
+    public long getChangeCounter();
+
+    public void incrementChangeCounter();
 }
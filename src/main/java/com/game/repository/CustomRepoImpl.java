@@ -1,31 +1,86 @@
 package com.game.repository;
 
+import com.game.controller.PlayerCursor;
+import com.game.controller.PlayerField;
 import com.game.controller.PlayerOrder;
+import com.game.dto.PlayersPage;
+import com.game.dto.PlayersUpdate;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
+import org.hibernate.CacheMode;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
 import javax.persistence.TypedQuery;
 import javax.persistence.criteria.*;
-import javax.transaction.Transactional;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Repository
 @Transactional
 public class CustomRepoImpl implements CustomRepo {
 
+    private static final int MAX_EXPERIENCE = 10000000;
+
+    private static final String INSERT_PLAYER = "INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // E is the clamped new experience; level and untilNextLevel come first because MySQL evaluates SET left to right
+    private static final String NEW_EXPERIENCE = "LEAST(GREATEST(experience + ?, 0), " + MAX_EXPERIENCE + ")";
+    private static final String NEW_LEVEL = "FLOOR((SQRT(2500 + 200.0 * " + NEW_EXPERIENCE + ") - 50) / 100)";
+    private static final String ADD_EXPERIENCE = "UPDATE player SET " +
+            "version = version + 1, " +
+            "level = " + NEW_LEVEL + ", " +
+            "untilNextLevel = 50 * (" + NEW_LEVEL + " + 1) * (" + NEW_LEVEL + " + 2) - " + NEW_EXPERIENCE + ", " +
+            "experience = " + NEW_EXPERIENCE + " WHERE id = ?";
+    private static final int ADD_EXPERIENCE_DELTAS = (int) ADD_EXPERIENCE.chars().filter(c -> c == '?').count() - 1;
+
+    private static final String READ_CHANGES = "SELECT counter FROM player_changes WHERE id = 1";
+    private static final String BUMP_CHANGES = "UPDATE player_changes SET counter = counter + 1 WHERE id = 1";
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    // list and count queries come from JPQL rendered once per filter shape and order instead of a fresh criteria query
+    @Value("${player.query.precompiled:true}")
+    private boolean precompiled;
+
+    private final PlayerQueryShapes queryShapes = new PlayerQueryShapes();
+
+    @Transactional(readOnly = true)
     public List<Player> getPlayers(String name, String title, Race race, Profession profession, Long after, Long before,
                                    Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
                                    Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize) {
 
+        if (precompiled) {
+            int pageSiz = pageSize == null ? 3 : pageSize;
+            TypedQuery<Player> query = shapeQuery(PlayerQueryShapes.Kind.LIST, Player.class, name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order);
+            query.setFirstResult((pageNumber == null ? 0 : pageNumber) * pageSiz);
+            query.setMaxResults(pageSiz);
+            return query.getResultList();
+        }
+
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Player> cq = cb.createQuery(Player.class);
         Root<Player> playerRoot = cq.from(Player.class);
@@ -42,10 +97,10 @@ public class CustomRepoImpl implements CustomRepo {
             cq.where(predicates.toArray(new Predicate[0]));
         }
 
-        if (order != null) {
-            cq.orderBy(cb.asc(playerRoot.get(order.getFieldName())));
-        } else {
+        if (order == null || order == PlayerOrder.ID) {
             cq.orderBy(cb.asc(playerRoot.get("id")));
+        } else {
+            cq.orderBy(cb.asc(playerRoot.get(order.getFieldName())), cb.asc(playerRoot.get("id")));
         }
 
         if (pageNumber != null) {
@@ -64,10 +119,191 @@ public class CustomRepoImpl implements CustomRepo {
         return typedQuery.getResultList();
     }
 
+    // scalar columns only: nothing enters the persistence context, so there are no entities, proxies or snapshots
+    @Transactional(readOnly = true)
+    public List<Map<String, Object>> getPlayerFields(String name, String title, Race race, Profession profession, Long after, Long before,
+                                                     Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                                                     Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize,
+                                                     Set<PlayerField> fields) {
+        int pageSiz = pageSize == null ? 3 : pageSize;
+        int mask = PlayerQueryShapes.mask(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        TypedQuery<Tuple> query = entityManager.createQuery(queryShapes.jpql(PlayerQueryShapes.Kind.PROJECTION, mask, order, fields), Tuple.class);
+        PlayerQueryShapes.bind(query, name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        query.setFirstResult((pageNumber == null ? 0 : pageNumber) * pageSiz);
+        query.setMaxResults(pageSiz);
+
+        List<Tuple> tuples = query.getResultList();
+        List<Map<String, Object>> rows = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            int column = 0;
+            for (PlayerField field : fields) {
+                row.put(field.getFieldName(), tuple.get(column++));
+            }
+            rows.add(Collections.unmodifiableMap(row));
+        }
+        return rows;
+    }
+
+    // one predicate build and one transaction for both statements: the criteria query is rendered again after
+    // switching its selection to count(), and the count is skipped when a short page already tells the total
+    @Transactional(readOnly = true)
+    public PlayersPage getPlayersPage(String name, String title, Race race, Profession profession, Long after, Long before,
+                                      Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                                      Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize) {
+
+        if (precompiled) {
+            int pageSiz = pageSize == null ? 3 : pageSize;
+            int firstResult = (pageNumber == null ? 0 : pageNumber) * pageSiz;
+            TypedQuery<Player> query = shapeQuery(PlayerQueryShapes.Kind.LIST, Player.class, name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order);
+            query.setFirstResult(firstResult);
+            query.setMaxResults(pageSiz);
+            List<Player> players = query.getResultList();
+            if (players.size() < pageSiz && (players.size() > 0 || firstResult == 0)) {
+                return new PlayersPage(players, firstResult + players.size());
+            }
+            Long count = shapeQuery(PlayerQueryShapes.Kind.COUNT, Long.class, name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, null).getSingleResult();
+            return new PlayersPage(players, Math.toIntExact(count));
+        }
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Object> cq = cb.createQuery();
+        Root<Player> playerRoot = cq.from(Player.class);
+        List<Predicate> predicates = new ArrayList<>();
+
+        int pageNumb = 0;
+        int pageSiz = 3;
+
+        predicates = createPredicateList(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, cb, playerRoot, predicates);
+
+        if (predicates.size() != 0) {
+            cq.where(predicates.toArray(new Predicate[0]));
+        }
+
+        cq.select(playerRoot);
+        if (order == null || order == PlayerOrder.ID) {
+            cq.orderBy(cb.asc(playerRoot.get("id")));
+        } else {
+            cq.orderBy(cb.asc(playerRoot.get(order.getFieldName())), cb.asc(playerRoot.get("id")));
+        }
+
+        if (pageNumber != null) {
+            pageNumb = pageNumber;
+        }
+
+        if (pageSize != null) {
+            pageSiz = pageSize;
+        }
+
+        int firstResult = pageNumb * pageSiz;
+        TypedQuery<Object> pageQuery = entityManager.createQuery(cq);
+        pageQuery.setFirstResult(firstResult);
+        pageQuery.setMaxResults(pageSiz);
+
+        List<Player> players = new ArrayList<>();
+        for (Object row : pageQuery.getResultList()) {
+            players.add((Player) row);
+        }
+
+        if (players.size() < pageSiz && (players.size() > 0 || firstResult == 0)) {
+            return new PlayersPage(players, firstResult + players.size());
+        }
+
+        cq.select(cb.count(playerRoot));
+        cq.orderBy(new ArrayList<>());
+        Long count = (Long) entityManager.createQuery(cq).getSingleResult();
+
+        return new PlayersPage(players, Math.toIntExact(count));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Player> getPlayersAfter(String name, String title, Race race, Profession profession, Long after, Long before,
+                                        Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
+                                        Integer maxLevel, PlayerOrder order, PlayerCursor cursor, Integer pageSize) {
+
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> cq = cb.createQuery(Player.class);
+        Root<Player> playerRoot = cq.from(Player.class);
+        List<Predicate> predicates = new ArrayList<>();
+
+        int pageSiz = 3;
+
+        predicates = createPredicateList(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, cb, playerRoot, predicates);
+
+        if (cursor != null) {
+            predicates.add(createSeekPredicate(cursor, cb, playerRoot));
+        }
+
+        if (predicates.size() == 0) {
+            cq.select(playerRoot);
+        } else {
+            cq.where(predicates.toArray(new Predicate[0]));
+        }
+
+        if (order == PlayerOrder.ID) {
+            cq.orderBy(cb.asc(playerRoot.get("id")));
+        } else {
+            cq.orderBy(cb.asc(playerRoot.get(order.getFieldName())), cb.asc(playerRoot.get("id")));
+        }
+
+        if (pageSize != null) {
+            pageSiz = pageSize;
+        }
+
+        TypedQuery<Player> typedQuery = entityManager.createQuery(cq);
+        typedQuery.setMaxResults(pageSiz);
+
+        return typedQuery.getResultList();
+    }
+
+    // rows come off a forward-only cursor and the persistence context is cleared every fetchSize rows,
+    // so memory stays flat however many players match
+    @Transactional(readOnly = true)
+    public void forEachPlayer(String name, String title, Race race, Profession profession, Long after, Long before,
+                              Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                              PlayerOrder order, Integer pageNumber, Integer pageSize, int fetchSize, Consumer<Player> action) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Player> cq = cb.createQuery(Player.class);
+        Root<Player> playerRoot = cq.from(Player.class);
+        List<Predicate> predicates = createPredicateList(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, cb, playerRoot, new ArrayList<>());
+
+        cq.select(playerRoot).where(predicates.toArray(new Predicate[0]));
+        if (order == null || order == PlayerOrder.ID) {
+            cq.orderBy(cb.asc(playerRoot.get("id")));
+        } else {
+            cq.orderBy(cb.asc(playerRoot.get(order.getFieldName())), cb.asc(playerRoot.get("id")));
+        }
+
+        @SuppressWarnings("unchecked")
+        org.hibernate.query.Query<Player> query = entityManager.createQuery(cq).unwrap(org.hibernate.query.Query.class);
+        if (pageSize != null) {
+            query.setFirstResult((pageNumber == null ? 0 : pageNumber) * pageSize);
+            query.setMaxResults(pageSize);
+        }
+        query.setFetchSize(fetchSize);
+        query.setReadOnly(true);
+        query.setCacheMode(CacheMode.IGNORE);
+
+        try (ScrollableResults rows = query.scroll(ScrollMode.FORWARD_ONLY)) {
+            int read = 0;
+            while (rows.next()) {
+                action.accept((Player) rows.get(0));
+                if (++read % fetchSize == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+    }
+
+    @Transactional(readOnly = true)
     public Long getPlayersCount(String name, String title, Race race, Profession profession, Long after, Long before,
                                 Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel,
                                 Integer maxLevel) {
 
+        if (precompiled) {
+            return shapeQuery(PlayerQueryShapes.Kind.COUNT, Long.class, name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, null).getSingleResult();
+        }
+
         CriteriaBuilder cb = entityManager.getCriteriaBuilder();
         CriteriaQuery<Long> cq = cb.createQuery(Long.class);
         Root<Player> playerRoot = cq.from(Player.class);
@@ -86,6 +322,13 @@ public class CustomRepoImpl implements CustomRepo {
         return typedQuery.getResultList().get(0);
     }
 
+    private <T> TypedQuery<T> shapeQuery(PlayerQueryShapes.Kind kind, Class<T> resultClass, String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order) {
+        int mask = PlayerQueryShapes.mask(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        TypedQuery<T> query = entityManager.createQuery(queryShapes.jpql(kind, mask, order), resultClass);
+        PlayerQueryShapes.bind(query, name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        return query;
+    }
+
     private List<Predicate> createPredicateList(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, CriteriaBuilder cb, Root<Player> playerRoot, List<Predicate> predicates) {
         if (name != null) {
             predicates.add(cb.like(playerRoot.get("name"), "%" + name + "%"));
@@ -132,6 +375,257 @@ public class CustomRepoImpl implements CustomRepo {
         return predicates;
     }
 
+    // (sortKey, id) > (?, ?) spelled out, the expanded form is what both MySQL and H2 can turn into an index range scan
+    private Predicate createSeekPredicate(PlayerCursor cursor, CriteriaBuilder cb, Root<Player> playerRoot) {
+        Path<Long> id = playerRoot.get("id");
+        switch (cursor.getOrder()) {
+            case NAME:
+                return seek(cb, playerRoot.get("name"), (String) cursor.getSortValue(), id, cursor.getId());
+            case EXPERIENCE:
+                return seek(cb, playerRoot.get("experience"), (Integer) cursor.getSortValue(), id, cursor.getId());
+            case LEVEL:
+                return seek(cb, playerRoot.get("level"), (Integer) cursor.getSortValue(), id, cursor.getId());
+            case BIRTHDAY:
+                return seek(cb, playerRoot.get("birthday"), (Date) cursor.getSortValue(), id, cursor.getId());
+            default:
+                return cb.greaterThan(id, cursor.getId());
+        }
+    }
+
+    private <T extends Comparable<? super T>> Predicate seek(CriteriaBuilder cb, Path<T> sortKey, T value, Path<Long> id, Long lastId) {
+        return cb.or(cb.greaterThan(sortKey, value),
+                cb.and(cb.equal(sortKey, value), cb.greaterThan(id, lastId)));
+    }
+
+    // the id of the chunkSize-th matching row after afterId, or null when fewer are left; a keyset read on the
+    // primary key, so every chunk but the last holds chunkSize matching rows however sparse their ids are
+    public Long getChunkEndId(String name, String title, Race race, Profession profession, Long after, Long before,
+                              Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                              Long afterId, int chunkSize) {
+        List<Long> ids = idsAfter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, afterId)
+                .setFirstResult(chunkSize - 1)
+                .setMaxResults(1)
+                .getResultList();
+        return ids.isEmpty() ? null : ids.get(0);
+    }
+
+    // one short transaction per chunk (afterId, toId] keeps row locks and undo small; a null bound is open.
+    // level and untilNextLevel are assigned before experience because MySQL evaluates SET left to right
+    // and they are derived from the old value
+    public int updatePlayers(String name, String title, Race race, Profession profession, Long after, Long before,
+                             Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                             PlayersUpdate update, Long afterId, Long toId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Player> cu = cb.createCriteriaUpdate(Player.class);
+        Root<Player> playerRoot = cu.from(Player.class);
+        List<Predicate> predicates = createPredicateList(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, cb, playerRoot, new ArrayList<>());
+        if (afterId != null) {
+            predicates.add(cb.gt(playerRoot.<Long>get("id"), afterId));
+        }
+        if (toId != null) {
+            predicates.add(cb.le(playerRoot.<Long>get("id"), toId));
+        }
+
+        Expression<Integer> experience = newExperience(update, cb, playerRoot);
+        if (experience != null) {
+            Expression<Integer> level = levelOf(experience, cb);
+            cu.set(playerRoot.<Integer>get("level"), level);
+            cu.set(playerRoot.<Integer>get("untilNextLevel"),
+                    cb.diff(cb.prod(cb.prod(cb.sum(level, 1), cb.sum(level, 2)), 50), experience));
+            cu.set(playerRoot.<Integer>get("experience"), experience);
+        }
+        if (update.getBanned() != null) {
+            cu.set(playerRoot.<Boolean>get("banned"), update.getBanned());
+        }
+        if (update.getTitle() != null) {
+            cu.set(playerRoot.<String>get("title"), update.getTitle());
+        }
+        cu.set(playerRoot.<Long>get("version"), cb.sum(playerRoot.<Long>get("version"), 1L));
+
+        cu.where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(cu).executeUpdate();
+    }
+
+    // one UPDATE of the non-null fields of changes, no read; with expectedVersions it only matches one of those versions
+    public int updatePlayer(Long id, Player changes, Set<Long> expectedVersions) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaUpdate<Player> cu = cb.createCriteriaUpdate(Player.class);
+        Root<Player> playerRoot = cu.from(Player.class);
+        setIfPresent(cu, playerRoot.get("name"), changes.getName());
+        setIfPresent(cu, playerRoot.get("title"), changes.getTitle());
+        setIfPresent(cu, playerRoot.get("race"), changes.getRace());
+        setIfPresent(cu, playerRoot.get("profession"), changes.getProfession());
+        setIfPresent(cu, playerRoot.get("birthday"), changes.getBirthday());
+        setIfPresent(cu, playerRoot.get("banned"), changes.getBanned());
+        setIfPresent(cu, playerRoot.get("experience"), changes.getExperience());
+        setIfPresent(cu, playerRoot.get("level"), changes.getLevel());
+        setIfPresent(cu, playerRoot.get("untilNextLevel"), changes.getUntilNextLevel());
+        cu.set(playerRoot.<Long>get("version"), cb.sum(playerRoot.<Long>get("version"), 1L));
+
+        Predicate byId = cb.equal(playerRoot.get("id"), id);
+        if (expectedVersions == null) {
+            cu.where(byId);
+        } else {
+            cu.where(byId, expectedVersions.isEmpty() ? cb.disjunction() : playerRoot.get("version").in(expectedVersions));
+        }
+        return entityManager.createQuery(cu).executeUpdate();
+    }
+
+    private static <T> void setIfPresent(CriteriaUpdate<Player> cu, Path<T> attribute, T value) {
+        if (value != null) {
+            cu.set(attribute, value);
+        }
+    }
+
+    private Expression<Integer> newExperience(PlayersUpdate update, CriteriaBuilder cb, Root<Player> playerRoot) {
+        if (update.getExperience() != null) {
+            return cb.literal(update.getExperience());
+        }
+        if (update.getAddExperience() == null) {
+            return null;
+        }
+        Expression<Integer> sum = cb.sum(playerRoot.<Integer>get("experience"), update.getAddExperience());
+        return cb.<Integer>selectCase()
+                .when(cb.lt(sum, 0), 0)
+                .when(cb.gt(sum, MAX_EXPERIENCE), MAX_EXPERIENCE)
+                .otherwise(sum);
+    }
+
+    // PlayerService.getCurrentLevel in SQL: floor((sqrt(2500 + 200 * experience) - 50) / 100)
+    private Expression<Integer> levelOf(Expression<Integer> experience, CriteriaBuilder cb) {
+        Expression<Double> root = cb.sqrt(cb.sum(cb.prod(experience, 200.0), 2500.0));
+        return cb.function("FLOOR", Integer.class, cb.quot(cb.diff(root, 50.0), 100.0));
+    }
+
+    // Player ids come from an IDENTITY column, which makes Hibernate insert row by row; plain JDBC batches
+    // still collapse into multi-row statements (rewriteBatchedStatements on MySQL) and hand the keys back
+    public List<Player> insertPlayers(List<Player> players, int batchSize) {
+        Session session = entityManager.unwrap(Session.class);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(INSERT_PLAYER, Statement.RETURN_GENERATED_KEYS)) {
+                int from = 0;
+                for (int i = 0; i < players.size(); i++) {
+                    bindPlayer(statement, players.get(i));
+                    statement.addBatch();
+                    if (i - from + 1 == batchSize || i == players.size() - 1) {
+                        statement.executeBatch();
+                        readGeneratedIds(statement, players.subList(from, i + 1));
+                        from = i + 1;
+                    }
+                }
+            }
+        });
+        return players;
+    }
+
+    // always a new row: an id sent by the client is ignored rather than merged over an existing player
+    public Player savePlayer(Player player) {
+        player.setId(null);
+        entityManager.persist(player);
+        return player;
+    }
+
+    private void bindPlayer(PreparedStatement statement, Player player) throws SQLException {
+        statement.setString(1, player.getName());
+        statement.setString(2, player.getTitle());
+        statement.setString(3, player.getRace() == null ? null : player.getRace().name());
+        statement.setString(4, player.getProfession() == null ? null : player.getProfession().name());
+        statement.setTimestamp(5, player.getBirthday() == null ? null : new Timestamp(player.getBirthday().getTime()));
+        if (player.getBanned() == null) {
+            statement.setNull(6, Types.BIT);
+        } else {
+            statement.setBoolean(6, player.getBanned());
+        }
+        statement.setObject(7, player.getExperience(), Types.INTEGER);
+        statement.setObject(8, player.getLevel(), Types.INTEGER);
+        statement.setObject(9, player.getUntilNextLevel(), Types.INTEGER);
+    }
+
+    private void readGeneratedIds(PreparedStatement statement, List<Player> batch) throws SQLException {
+        try (ResultSet keys = statement.getGeneratedKeys()) {
+            for (Player player : batch) {
+                if (!keys.next()) {
+                    throw new SQLException("driver returned fewer generated keys than inserted rows");
+                }
+                player.setId(keys.getLong(1));
+                player.setVersion(0L);
+            }
+        }
+    }
+
+    public int addExperience(Map<Long, Long> deltas, int batchSize) {
+        Session session = entityManager.unwrap(Session.class);
+        return session.doReturningWork(connection -> {
+            int updated = 0;
+            try (PreparedStatement statement = connection.prepareStatement(ADD_EXPERIENCE)) {
+                int pending = 0;
+                for (Map.Entry<Long, Long> delta : deltas.entrySet()) {
+                    int value = (int) Math.max(-MAX_EXPERIENCE, Math.min(MAX_EXPERIENCE, delta.getValue()));
+                    for (int parameter = 1; parameter <= ADD_EXPERIENCE_DELTAS; parameter++) {
+                        statement.setInt(parameter, value);
+                    }
+                    statement.setLong(ADD_EXPERIENCE_DELTAS + 1, delta.getKey());
+                    statement.addBatch();
+                    if (++pending == batchSize) {
+                        updated += updatedRows(statement.executeBatch());
+                        pending = 0;
+                    }
+                }
+                if (pending > 0) {
+                    updated += updatedRows(statement.executeBatch());
+                }
+            }
+            return updated;
+        });
+    }
+
+    private static int updatedRows(int[] counts) {
+        int updated = 0;
+        for (int count : counts) {
+            updated += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(count, 0);
+        }
+        return updated;
+    }
+
+    // ids of the next chunk to delete, read without locks; the primary key order makes it a keyset scan
+    public List<Long> getPlayerIdsAfter(String name, String title, Race race, Profession profession, Long after, Long before,
+                                        Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                                        Long afterId, int limit) {
+        return idsAfter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private TypedQuery<Long> idsAfter(String name, String title, Race race, Profession profession, Long after, Long before,
+                                      Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                                      Long afterId) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> cq = cb.createQuery(Long.class);
+        Root<Player> playerRoot = cq.from(Player.class);
+        List<Predicate> predicates = createPredicateList(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, cb, playerRoot, new ArrayList<>());
+        if (afterId != null) {
+            predicates.add(cb.gt(playerRoot.<Long>get("id"), afterId));
+        }
+        cq.select(playerRoot.<Long>get("id"))
+                .where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.asc(playerRoot.get("id")));
+        return entityManager.createQuery(cq);
+    }
+
+    // primary key lookups lock just these rows, where a filtered range delete would lock every row it scans;
+    // the filter is checked again for rows changed since their ids were read
+    public int deletePlayers(String name, String title, Race race, Profession profession, Long after, Long before,
+                             Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel,
+                             Collection<Long> ids) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaDelete<Player> cd = cb.createCriteriaDelete(Player.class);
+        Root<Player> playerRoot = cd.from(Player.class);
+        List<Predicate> predicates = createPredicateList(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, cb, playerRoot, new ArrayList<>());
+        predicates.add(playerRoot.get("id").in(ids));
+        cd.where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(cd).executeUpdate();
+    }
+
     public Integer deletePlayerById(Long id) {
         CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
         CriteriaDelete<Player> criteriaDelete = criteriaBuilder.createCriteriaDelete(Player.class);
@@ -139,4 +633,14 @@ public class CustomRepoImpl implements CustomRepo {
         criteriaDelete.where(criteriaBuilder.equal(rootPlayer.get("id"), id));
         return entityManager.createQuery(criteriaDelete).executeUpdate();
     }
+
+    // not read-only, so it is answered by the primary, which every instance writes through
+    public long getChangeCounter() {
+        return ((Number) entityManager.createNativeQuery(READ_CHANGES).getSingleResult()).longValue();
+    }
+
+    // a transaction of its own, run by PlayerChangeCounter for a whole interval of writes rather than inside each one
+    public void incrementChangeCounter() {
+        entityManager.createNativeQuery(BUMP_CHANGES).executeUpdate();
+    }
  }
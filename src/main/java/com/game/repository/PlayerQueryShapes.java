@@ -0,0 +1,115 @@
+package com.game.repository;
+
+import com.game.controller.PlayerField;
+import com.game.controller.PlayerOrder;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+
+import javax.persistence.Query;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * JPQL for the list, count and projection queries, rendered once per shape: which filters are present plus the order,
+ * and for projections the selected fields. A repeated shape costs one map lookup and the parameter binding, while
+ * Hibernate's query plan cache hits on the identical string. The conditions and order by are the same as
+ * CustomRepoImpl.createPredicateList and its criteria queries, so both paths return identical rows; ties on the
+ * sort key are broken by id in both.
+ */
+final class PlayerQueryShapes {
+
+    enum Kind {LIST, COUNT, PROJECTION}
+
+    private static final String[] CONDITIONS = {
+            "p.name like :name",
+            "p.title like :title",
+            "p.race = :race",
+            "p.profession = :profession",
+            "p.birthday >= :after",
+            "p.birthday <= :before",
+            "p.banned = :banned",
+            "p.experience >= :minExperience",
+            "p.experience <= :maxExperience",
+            "p.level >= :minLevel",
+            "p.level <= :maxLevel"
+    };
+
+    private static final int ORDER_SHIFT = 11;
+    private static final int FIELDS_SHIFT = 14;
+
+    private final ConcurrentMap<Integer, String> shapes = new ConcurrentHashMap<>();
+
+    static int mask(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned,
+                    Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) {
+        Object[] filters = {name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel};
+        int mask = 0;
+        for (int i = 0; i < filters.length; i++) {
+            if (filters[i] != null) {
+                mask |= 1 << i;
+            }
+        }
+        return mask;
+    }
+
+    String jpql(Kind kind, int mask, PlayerOrder order) {
+        return jpql(kind, mask, order, null);
+    }
+
+    // key bits: 0-10 filters, 11-13 order (0 for count), 14-23 projected fields
+    String jpql(Kind kind, int mask, PlayerOrder order, Set<PlayerField> fields) {
+        int orderKey = kind == Kind.COUNT ? 0 : (order == null ? PlayerOrder.ID : order).ordinal() + 1;
+        int key = mask | orderKey << ORDER_SHIFT;
+        if (kind == Kind.PROJECTION) {
+            for (PlayerField field : fields) {
+                key |= 1 << FIELDS_SHIFT + field.ordinal();
+            }
+        }
+        String jpql = shapes.get(key);
+        if (jpql == null) {
+            jpql = shapes.computeIfAbsent(key, k -> render(kind, mask, order, fields));
+        }
+        return jpql;
+    }
+
+    static void bind(Query query, String name, String title, Race race, Profession profession, Long after, Long before,
+                     Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) {
+        if (name != null) query.setParameter("name", "%" + name + "%");
+        if (title != null) query.setParameter("title", "%" + title + "%");
+        if (race != null) query.setParameter("race", race);
+        if (profession != null) query.setParameter("profession", profession);
+        if (after != null) query.setParameter("after", new Date(after));
+        if (before != null) query.setParameter("before", new Date(before));
+        if (banned != null) query.setParameter("banned", banned);
+        if (minExperience != null) query.setParameter("minExperience", minExperience);
+        if (maxExperience != null) query.setParameter("maxExperience", maxExperience);
+        if (minLevel != null) query.setParameter("minLevel", minLevel);
+        if (maxLevel != null) query.setParameter("maxLevel", maxLevel);
+    }
+
+    private static String render(Kind kind, int mask, PlayerOrder order, Set<PlayerField> fields) {
+        StringBuilder jpql = new StringBuilder(64);
+        if (kind == Kind.PROJECTION) {
+            String separator = "select ";
+            for (PlayerField field : fields) {
+                jpql.append(separator).append("p.").append(field.getFieldName()).append(" as ").append(field.getFieldName());
+                separator = ", ";
+            }
+            jpql.append(" from Player p");
+        } else {
+            jpql.append(kind == Kind.COUNT ? "select count(p) from Player p" : "select p from Player p");
+        }
+        String separator = " where ";
+        for (int i = 0; i < CONDITIONS.length; i++) {
+            if ((mask & 1 << i) != 0) {
+                jpql.append(separator).append(CONDITIONS[i]);
+                separator = " and ";
+            }
+        }
+        if (kind != Kind.COUNT) {
+            jpql.append(order == null || order == PlayerOrder.ID ? " order by p.id" : " order by p." + order.getFieldName() + ", p.id");
+        }
+        return jpql.toString();
+    }
+}
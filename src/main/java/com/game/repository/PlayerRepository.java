@@ -2,8 +2,14 @@ package com.game.repository;
 
 import com.game.entity.Player;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface PlayerRepository extends JpaRepository<Player,Long>, CustomRepo {
+   @Transactional(readOnly = true)
    Player getById(Long id);
+
+   List<Player> findByIdBetween(Long fromId, Long toId);
 }
 
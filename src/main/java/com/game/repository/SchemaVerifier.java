@@ -0,0 +1,143 @@
+package com.game.repository;
+
+import com.game.controller.PlayerOrder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs EXPLAIN for the PlayerOrder x common filter shapes of the list query and for the common count shapes,
+ * and flags each plan that still needs a full scan or a filesort: a full table scan, or a full index scan
+ * (type=index) for a filtered shape, whose filter then leads no index. Only unfiltered shapes may walk a whole
+ * index: a LIMIT stops an ordered walk early, and an unfiltered COUNT(*) reads every row by definition.
+ * A filtered list is checked only in the orders some index backs: ORDER BY id under a filter has no index of its
+ * own since the single-column prefix indexes were dropped, and race+profession+banned has no per-order indexes.
+ * With db.verify-indexes=true a failing shape aborts startup; the report is also available on demand from
+ * the admin API. MySQL only.
+ */
+@Component
+public class SchemaVerifier implements ApplicationListener<ContextRefreshedEvent> {
+
+    private static final Map<String, String> FILTER_SHAPES = new LinkedHashMap<>();
+
+    static {
+        FILTER_SHAPES.put("none", "");
+        FILTER_SHAPES.put("race", "race = 'ORC'");
+        FILTER_SHAPES.put("profession", "profession = 'WARRIOR'");
+        FILTER_SHAPES.put("banned", "banned = false");
+        FILTER_SHAPES.put("race+profession", "race = 'ORC' AND profession = 'WARRIOR'");
+        FILTER_SHAPES.put("race+profession+banned", "race = 'ORC' AND profession = 'WARRIOR' AND banned = false");
+    }
+
+    private static final Map<String, Set<PlayerOrder>> LIST_ORDERS = new LinkedHashMap<>();
+
+    static {
+        Set<PlayerOrder> sortKeys = EnumSet.complementOf(EnumSet.of(PlayerOrder.ID));
+        LIST_ORDERS.put("none", EnumSet.allOf(PlayerOrder.class));
+        LIST_ORDERS.put("race", sortKeys);
+        LIST_ORDERS.put("profession", sortKeys);
+        LIST_ORDERS.put("banned", sortKeys);
+        LIST_ORDERS.put("race+profession", sortKeys);
+        LIST_ORDERS.put("race+profession+banned", EnumSet.noneOf(PlayerOrder.class));
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final DataSource dataSource;
+    private final boolean verifyOnStartup;
+    private final AtomicBoolean verified = new AtomicBoolean();
+
+    @Autowired
+    public SchemaVerifier(DataSource dataSource, @Value("${db.verify-indexes:false}") boolean verifyOnStartup) {
+        this.dataSource = dataSource;
+        this.verifyOnStartup = verifyOnStartup;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (!verifyOnStartup || !verified.compareAndSet(false, true)) {
+            return;
+        }
+        Map<String, Object> report = explain();
+        if (!Boolean.TRUE.equals(report.get("ok"))) {
+            throw new IllegalStateException("player query shapes without a usable index: " + report.get("failures"));
+        }
+        logger.info("all player query shapes are index-backed");
+    }
+
+    public Map<String, Object> explain() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        List<Map<String, Object>> shapes = new ArrayList<>();
+        List<String> failures = new ArrayList<>();
+
+        try (Connection connection = dataSource.getConnection()) {
+            String database = connection.getMetaData().getDatabaseProductName();
+            report.put("database", database);
+            if (!database.toLowerCase().contains("mysql")) {
+                report.put("ok", true);
+                report.put("skipped", "EXPLAIN verification needs MySQL");
+                return report;
+            }
+
+            for (Map.Entry<String, String> filter : FILTER_SHAPES.entrySet()) {
+                String where = filter.getValue().isEmpty() ? "" : " WHERE " + filter.getValue();
+                for (PlayerOrder order : LIST_ORDERS.get(filter.getKey())) {
+                    String orderBy = order == PlayerOrder.ID ? "id" : order.getFieldName() + ", id";
+                    String shape = "list " + filter.getKey() + " order " + order;
+                    shapes.add(explainShape(connection, shape, "SELECT * FROM player" + where + " ORDER BY " + orderBy + " LIMIT 3", !where.isEmpty(), failures));
+                }
+                shapes.add(explainShape(connection, "count " + filter.getKey(), "SELECT COUNT(*) FROM player" + where, !where.isEmpty(), failures));
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("EXPLAIN verification failed", e);
+        }
+
+        report.put("ok", failures.isEmpty());
+        report.put("failures", failures);
+        report.put("shapes", shapes);
+        return report;
+    }
+
+    private Map<String, Object> explainShape(Connection connection, String shape, String sql, boolean filtered, List<String> failures) throws SQLException {
+        Map<String, Object> plan = new LinkedHashMap<>();
+        plan.put("shape", shape);
+        plan.put("sql", sql);
+        boolean ok = true;
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("EXPLAIN " + sql)) {
+            while (resultSet.next()) {
+                String type = resultSet.getString("type");
+                String extra = resultSet.getString("Extra");
+                plan.put("type", type);
+                plan.put("key", resultSet.getString("key"));
+                plan.put("rows", resultSet.getLong("rows"));
+                plan.put("extra", extra);
+                if ("ALL".equals(type) || (filtered && "index".equals(type))
+                        || (extra != null && extra.contains("Using filesort"))) {
+                    ok = false;
+                }
+            }
+        }
+        plan.put("ok", ok);
+        if (!ok) {
+            failures.add(shape);
+        }
+        return plan;
+    }
+}
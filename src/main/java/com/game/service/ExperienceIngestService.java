@@ -0,0 +1,224 @@
+package com.game.service;
+
+import com.game.dto.ExperienceEvent;
+import com.game.exception.BadRequestException;
+import com.game.metrics.LatencyRecorder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Buffers experience grants and applies them in bulk. Deltas for the same player are summed in one of
+ * several lock-striped maps, and a scheduled flush writes each player's total with a single batched UPDATE
+ * that also recomputes level and untilNextLevel. Producers are refused once too many players are pending, a hard
+ * limit for them; only deltas put back after a failed flush may exceed it. Whatever is buffered is flushed on
+ * shutdown.
+ */
+@Service
+public class ExperienceIngestService implements InitializingBean, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final PlayerService playerService;
+    private final ReentrantLock[] locks;
+    private final List<Map<Long, Long>> stripes;
+    private final AtomicInteger pendingPlayers = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int maxPendingPlayers;
+    private final int maxBatchEvents;
+    private final long flushIntervalMs;
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong acceptedEvents = new AtomicLong();
+    private final AtomicLong rejectedBatches = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedPlayers = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final LatencyRecorder flushLatency = new LatencyRecorder();
+
+    @Autowired
+    public ExperienceIngestService(PlayerService playerService,
+                                   @Value("${player.xp.stripes:16}") int stripeCount,
+                                   @Value("${player.xp.max-pending-players:100000}") int maxPendingPlayers,
+                                   @Value("${player.xp.max-batch-events:10000}") int maxBatchEvents,
+                                   @Value("${player.xp.flush-interval-ms:200}") long flushIntervalMs) {
+        this.playerService = playerService;
+        this.locks = new ReentrantLock[stripeCount];
+        this.stripes = new ArrayList<>(stripeCount);
+        for (int i = 0; i < stripeCount; i++) {
+            locks[i] = new ReentrantLock();
+            stripes.add(new HashMap<>());
+        }
+        this.maxPendingPlayers = maxPendingPlayers;
+        this.maxBatchEvents = maxBatchEvents;
+        this.flushIntervalMs = flushIntervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "player-xp-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        flush();
+    }
+
+    /**
+     * Adds the events to the buffer. Returns false without buffering anything when the batch could push
+     * the number of pending players over the limit; the caller should retry later.
+     */
+    public boolean submit(List<ExperienceEvent> events) throws BadRequestException {
+        if (events.size() > maxBatchEvents) {
+            throw new BadRequestException(String.format("batch of %d events exceeds %d", events.size(), maxBatchEvents));
+        }
+        for (ExperienceEvent event : events) {
+            if (event == null || event.getPlayerId() == null || event.getPlayerId() < 1 || event.getDelta() == null) {
+                throw new BadRequestException("experience event IllegalArgumentException");
+            }
+        }
+        // every event could be a new player, so that many slots are reserved up front and the unused ones
+        // given back afterwards; concurrent batches can never overshoot the limit together
+        int reserved = events.size();
+        int pending;
+        do {
+            pending = pendingPlayers.get();
+            if (pending + reserved > maxPendingPlayers) {
+                rejectedBatches.incrementAndGet();
+                return false;
+            }
+        } while (!pendingPlayers.compareAndSet(pending, pending + reserved));
+
+        int added = 0;
+        for (ExperienceEvent event : events) {
+            int stripe = stripe(event.getPlayerId());
+            locks[stripe].lock();
+            try {
+                if (add(stripes.get(stripe), event.getPlayerId(), event.getDelta())) {
+                    added++;
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+        pendingPlayers.addAndGet(added - reserved);
+        acceptedEvents.addAndGet(events.size());
+        return true;
+    }
+
+    /**
+     * Writes every buffered delta. Runs on the scheduler, on shutdown, or on demand.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            Map<Long, Long> merged = drain();
+            if (merged.isEmpty()) {
+                return 0;
+            }
+            long start = System.nanoTime();
+            try {
+                int updated = playerService.applyExperienceDeltas(merged);
+                flushes.incrementAndGet();
+                flushedPlayers.addAndGet(merged.size());
+                return updated;
+            } catch (RuntimeException e) {
+                // only the UPDATE transaction throws, and it was rolled back, so the deltas can go back in
+                failedFlushes.incrementAndGet();
+                restore(merged);
+                throw e;
+            } finally {
+                flushLatency.recordNanos(System.nanoTime() - start);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pendingPlayers", pendingPlayers.get());
+        stats.put("maxPendingPlayers", maxPendingPlayers);
+        stats.put("acceptedEvents", acceptedEvents.get());
+        stats.put("rejectedBatches", rejectedBatches.get());
+        stats.put("flushes", flushes.get());
+        stats.put("flushedPlayers", flushedPlayers.get());
+        stats.put("failedFlushes", failedFlushes.get());
+        stats.put("flushLatency", flushLatency.summary());
+        return stats;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("experience flush failed, deltas kept for the next attempt", e);
+        }
+    }
+
+    private Map<Long, Long> drain() {
+        Map<Long, Long> merged = new HashMap<>();
+        for (int i = 0; i < stripes.size(); i++) {
+            Map<Long, Long> drained;
+            locks[i].lock();
+            try {
+                drained = stripes.set(i, new HashMap<>());
+                pendingPlayers.addAndGet(-drained.size());
+            } finally {
+                locks[i].unlock();
+            }
+            merged.putAll(drained);
+        }
+        return merged;
+    }
+
+    private void restore(Map<Long, Long> merged) {
+        for (Map.Entry<Long, Long> delta : merged.entrySet()) {
+            int stripe = stripe(delta.getKey());
+            locks[stripe].lock();
+            try {
+                if (add(stripes.get(stripe), delta.getKey(), delta.getValue())) {
+                    pendingPlayers.incrementAndGet();
+                }
+            } finally {
+                locks[stripe].unlock();
+            }
+        }
+    }
+
+    // caller holds the stripe lock and counts the player as pending when this returns true
+    private boolean add(Map<Long, Long> stripe, Long playerId, long delta) {
+        Long previous = stripe.put(playerId, delta);
+        if (previous == null) {
+            return true;
+        }
+        stripe.put(playerId, previous + delta);
+        return false;
+    }
+
+    private int stripe(Long playerId) {
+        return (Long.hashCode(playerId) & Integer.MAX_VALUE) % stripes.size();
+    }
+}
@@ -0,0 +1,112 @@
+package com.game.service;
+
+import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tells the instances about each other's writes through the shared player_changes counter, off the write path.
+ * Writes only mark this instance changed; every sync-interval-ms one UPDATE publishes all of them and the counter
+ * is read back. A counter moved by another instance invalidates the query cache, and with it the collection ETags
+ * built from its generation, so writes elsewhere show up here within one interval, a bound of the same kind as
+ * the cache TTL.
+ */
+@Component
+public class PlayerChangeCounter implements InitializingBean, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final PlayerRepository playersRepo;
+    private final PlayerQueryCache queryCache;
+    private final long syncIntervalMs;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicBoolean changed = new AtomicBoolean();
+    private final AtomicLong lastCounter = new AtomicLong(-1);
+    private final AtomicLong publishes = new AtomicLong();
+    private final AtomicLong remoteChanges = new AtomicLong();
+
+    @Autowired
+    public PlayerChangeCounter(PlayerRepository playersRepo, PlayerQueryCache queryCache,
+                               @Value("${player.changes.sync-interval-ms:1000}") long syncIntervalMs) {
+        this.playersRepo = playersRepo;
+        this.queryCache = queryCache;
+        this.syncIntervalMs = syncIntervalMs;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "player-changes-sync");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        scheduler.scheduleWithFixedDelay(this::syncQuietly, syncIntervalMs, syncIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(10, TimeUnit.SECONDS);
+        if (changed.get()) {
+            syncQuietly();
+        }
+    }
+
+    // called after a committed write
+    public void markChanged() {
+        changed.set(true);
+    }
+
+    /**
+     * Publishes the writes made here since the last sync and picks up those of other instances.
+     * Runs on the scheduler, on shutdown, or on demand.
+     */
+    public synchronized void sync() {
+        boolean publish = changed.getAndSet(false);
+        if (publish) {
+            try {
+                playersRepo.incrementChangeCounter();
+                publishes.incrementAndGet();
+            } catch (RuntimeException e) {
+                changed.set(true);
+                throw e;
+            }
+        }
+        long counter = playersRepo.getChangeCounter();
+        long previous = lastCounter.getAndSet(counter);
+        // the first read has nothing to compare with, so whatever was cached before it is dropped
+        if (previous < 0 || counter != previous + (publish ? 1 : 0)) {
+            remoteChanges.incrementAndGet();
+            queryCache.invalidate();
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("counter", lastCounter.get());
+        stats.put("pending", changed.get());
+        stats.put("publishes", publishes.get());
+        stats.put("remoteChanges", remoteChanges.get());
+        return stats;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            logger.warn("player change counter sync failed, retried on the next interval", e);
+        }
+    }
+}
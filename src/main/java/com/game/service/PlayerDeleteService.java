@@ -0,0 +1,193 @@
+package com.game.service;
+
+import com.game.dto.PlayersDeleteJob;
+import com.game.dto.PlayersDeleteJob.State;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exception.BadRequestException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+/**
+ * Deletes the players matching a filter in the background. Each chunk reads the next chunk-size matching ids
+ * without locks and deletes them by primary key in its own short transaction, so row locks never outlive a chunk
+ * and concurrent list queries only ever wait for one. Jobs run one at a time, report their progress and stop
+ * after the current chunk when cancelled; the last finished jobs are kept for their status.
+ */
+@Service
+public class PlayerDeleteService implements DisposableBean {
+
+    private static final int RETAINED_JOBS = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final PlayerService playerService;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final ExecutorService executor;
+    private final AtomicLong jobIds = new AtomicLong();
+    private final Map<Long, Job> jobs = Collections.synchronizedMap(new LinkedHashMap<Long, Job>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, Job> eldest) {
+            return size() > RETAINED_JOBS;
+        }
+    });
+
+    @Autowired
+    public PlayerDeleteService(PlayerService playerService,
+                               @Value("${player.bulk-delete.chunk-size:1000}") int chunkSize,
+                               @Value("${player.bulk-delete.pause-ms:10}") long pauseMs) {
+        this.playerService = playerService;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.executor = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "player-delete");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public PlayersDeleteJob dryRun(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) throws BadRequestException {
+        requireFilter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        long matching = playerService.getAllPlayersCountWithFilter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        return new PlayersDeleteJob(null, State.DRY_RUN, matching, 0, 0, null, null);
+    }
+
+    public PlayersDeleteJob start(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) throws BadRequestException {
+        requireFilter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        long matching = playerService.getAllPlayersCountWithFilter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        Job job = new Job(jobIds.incrementAndGet(), matching);
+        Function<Long, List<Long>> nextChunk = afterId -> playerService.getPlayerIdsWithFilter(name, title, race, profession,
+                after, before, banned, minExperience, maxExperience, minLevel, maxLevel, afterId, chunkSize);
+        ToIntFunction<List<Long>> deleteChunk = ids -> playerService.deletePlayersWithFilter(name, title, race, profession,
+                after, before, banned, minExperience, maxExperience, minLevel, maxLevel, ids);
+        job.future = executor.submit(() -> run(job, nextChunk, deleteChunk));
+        jobs.put(job.id, job);
+        return job.toDto();
+    }
+
+    public PlayersDeleteJob getJob(Long id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.toDto();
+    }
+
+    public PlayersDeleteJob cancel(Long id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        job.cancel();
+        return job.toDto();
+    }
+
+    private void run(Job job, Function<Long, List<Long>> nextChunk, ToIntFunction<List<Long>> deleteChunk) {
+        if (!job.begin()) {
+            return;
+        }
+        try {
+            Long afterId = null;
+            while (!job.isCancelRequested()) {
+                List<Long> ids = nextChunk.apply(afterId);
+                if (ids.isEmpty()) {
+                    break;
+                }
+                afterId = ids.get(ids.size() - 1);
+                job.chunkDone(deleteChunk.applyAsInt(ids), afterId);
+                if (ids.size() < chunkSize) {
+                    break;
+                }
+                if (pauseMs > 0) {
+                    Thread.sleep(pauseMs);
+                }
+            }
+            job.finish(job.isCancelRequested() ? State.CANCELLED : State.COMPLETED, null);
+        } catch (InterruptedException e) {
+            job.finish(State.CANCELLED, null);
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("bulk delete job {} failed", job.id, e);
+            job.finish(State.FAILED, e.getMessage());
+        }
+    }
+
+    private static void requireFilter(Object... filters) throws BadRequestException {
+        for (Object filter : filters) {
+            if (filter != null) {
+                return;
+            }
+        }
+        throw new BadRequestException("bulk delete without a filter IllegalArgumentException");
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private static final class Job {
+        private final long id;
+        private final long matching;
+        private Future<?> future;
+        private State state = State.QUEUED;
+        private long deleted;
+        private int chunks;
+        private Long lastId;
+        private String error;
+
+        private Job(long id, long matching) {
+            this.id = id;
+            this.matching = matching;
+        }
+
+        private synchronized boolean begin() {
+            if (state != State.QUEUED) {
+                return false;
+            }
+            state = State.RUNNING;
+            return true;
+        }
+
+        private synchronized boolean isCancelRequested() {
+            return state == State.CANCELLING;
+        }
+
+        private synchronized void chunkDone(int chunkDeleted, Long chunkLastId) {
+            deleted += chunkDeleted;
+            chunks++;
+            lastId = chunkLastId;
+        }
+
+        private synchronized void finish(State finalState, String failure) {
+            state = finalState;
+            error = failure;
+        }
+
+        // a queued job never starts; a running one stops after its current chunk
+        private synchronized void cancel() {
+            if (state == State.QUEUED) {
+                state = State.CANCELLED;
+                future.cancel(false);
+            } else if (state == State.RUNNING) {
+                state = State.CANCELLING;
+            }
+        }
+
+        private synchronized PlayersDeleteJob toDto() {
+            return new PlayersDeleteJob(id, state, matching, deleted, chunks, lastId, error);
+        }
+    }
+}
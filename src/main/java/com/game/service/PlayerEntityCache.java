@@ -0,0 +1,66 @@
+package com.game.service;
+
+import com.game.datasource.ReplicaRouting;
+import com.game.entity.Player;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Players by id. Caffeine's bounded cache evicts with W-TinyLFU: a new entry has to beat the victim's access
+ * frequency to be admitted, so a one-off scan over many ids does not push out the hot players.
+ * A load racing with {@link #invalidate(Long)} is serialized on the key, so an entry loaded before a write
+ * commits is removed by the invalidation that follows it. Loads shortly after a write read from the primary,
+ * see {@link ReplicaRouting#consistentLoad}.
+ */
+@Component
+public class PlayerEntityCache {
+
+    private final boolean enabled;
+    private final Cache<Long, Player> cache;
+
+    public PlayerEntityCache(@Value("${player.entity-cache.enabled:true}") boolean enabled,
+                             @Value("${player.entity-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${player.entity-cache.ttl-seconds:300}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    public Player get(Long id, Function<Long, Player> loader) {
+        if (!enabled) {
+            return loader.apply(id);
+        }
+        return cache.get(id, key -> ReplicaRouting.consistentLoad(() -> loader.apply(key)));
+    }
+
+    public void invalidate(Long id) {
+        cache.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
@@ -0,0 +1,158 @@
+package com.game.service;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.game.controller.ExportFormat;
+import com.game.controller.PlayerField;
+import com.game.controller.PlayerOrder;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.PlayerRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Writes filtered players to a stream row by row, straight from the repository cursor.
+ */
+@Service
+public class PlayerExportService {
+
+    private static final String CSV_HEADER = "id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel\n";
+
+    private final PlayerRepository playersRepo;
+    private final ObjectMapper objectMapper;
+    // rows are flushed every fetchSize rows, not after each value as ObjectMapper.writeValue(generator, ...) does
+    private final ObjectWriter rowWriter;
+    private final int fetchSize;
+    private final int maxPageSize;
+
+    @Autowired
+    public PlayerExportService(PlayerRepository playersRepo, ObjectMapper objectMapper,
+                               @Value("${player.export.fetch-size:1000}") int fetchSize,
+                               @Value("${player.list.max-page-size:1000}") int maxPageSize) {
+        this.playersRepo = playersRepo;
+        this.objectMapper = objectMapper;
+        this.rowWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * True when a GET /rest/players page is too large to build in memory and should be streamed instead.
+     */
+    public boolean isOversizePage(Integer pageSize) {
+        return pageSize != null && pageSize > maxPageSize;
+    }
+
+    public void export(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize, ExportFormat format, OutputStream out) throws IOException {
+        export(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, format, Collections.emptySet(), out);
+    }
+
+    /**
+     * With a non-empty field set JSON rows carry only those properties; CSV always has every column.
+     */
+    public void export(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize, ExportFormat format, Set<PlayerField> fields, OutputStream out) throws IOException {
+        try {
+            if (format == ExportFormat.CSV) {
+                exportCsv(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, out);
+            } else {
+                exportJson(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, format == ExportFormat.JSON, fields, out);
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void exportJson(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize, boolean array, Set<PlayerField> fields, OutputStream out) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out, JsonEncoding.UTF8)) {
+            generator.setRootValueSeparator(null);
+            if (array) {
+                generator.writeStartArray();
+            }
+            int[] written = {0};
+            playersRepo.forEachPlayer(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, fetchSize, player -> {
+                try {
+                    if (fields.isEmpty()) {
+                        rowWriter.writeValue(generator, player);
+                    } else {
+                        generator.writeStartObject();
+                        for (PlayerField field : fields) {
+                            generator.writeFieldName(field.getFieldName());
+                            rowWriter.writeValue(generator, field.valueOf(player));
+                        }
+                        generator.writeEndObject();
+                    }
+                    if (!array) {
+                        generator.writeRaw('\n');
+                    }
+                    if (++written[0] % fetchSize == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (array) {
+                generator.writeEndArray();
+            }
+        }
+    }
+
+    private void exportCsv(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize, OutputStream out) throws IOException {
+        try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.write(CSV_HEADER);
+            playersRepo.forEachPlayer(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, fetchSize, player -> {
+                try {
+                    writer.write(toCsvLine(player));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    private static String toCsvLine(Player player) {
+        StringBuilder line = new StringBuilder(128);
+        line.append(player.getId()).append(',')
+                .append(csvText(player.getName())).append(',')
+                .append(csvText(player.getTitle())).append(',')
+                .append(csvValue(player.getRace())).append(',')
+                .append(csvValue(player.getProfession())).append(',')
+                .append(csvValue(player.getBirthday() == null ? null : player.getBirthday().getTime())).append(',')
+                .append(csvValue(player.getBanned())).append(',')
+                .append(csvValue(player.getExperience())).append(',')
+                .append(csvValue(player.getLevel())).append(',')
+                .append(csvValue(player.getUntilNextLevel())).append('\n');
+        return line.toString();
+    }
+
+    private static String csvValue(Object value) {
+        return value == null ? "" : value.toString();
+    }
+
+    // RFC 4180: quote fields containing a separator, quote or line break and double the quotes inside
+    private static String csvText(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
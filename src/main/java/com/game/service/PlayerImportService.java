@@ -0,0 +1,258 @@
+package com.game.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.ExportFormat;
+import com.game.dto.ImportResult;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.exception.BadRequestException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Imports players from an NDJSON or CSV body read line by line. The request thread parses and validates
+ * while a writer thread commits full batches, connected by a bounded queue so a slow database
+ * holds back the parser instead of piling batches up in memory.
+ */
+@Service
+public class PlayerImportService implements DisposableBean {
+
+    private static final List<Player> END_OF_INPUT = new ArrayList<>(0);
+
+    private final PlayerService playerService;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int queueCapacity;
+    private final int maxErrors;
+    private final ExecutorService writers;
+
+    @Autowired
+    public PlayerImportService(PlayerService playerService, ObjectMapper objectMapper,
+                               @Value("${player.import.batch-size:1000}") int batchSize,
+                               @Value("${player.import.queue-capacity:4}") int queueCapacity,
+                               @Value("${player.import.max-errors:1000}") int maxErrors,
+                               @Value("${player.import.writer-threads:2}") int writerThreads) {
+        this.playerService = playerService;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+        this.maxErrors = maxErrors;
+        AtomicInteger threads = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, task -> {
+            Thread thread = new Thread(task, "player-import-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public ImportResult importPlayers(InputStream in, ExportFormat format) throws IOException, BadRequestException {
+        if (format == ExportFormat.JSON) {
+            throw new BadRequestException("import format must be NDJSON or CSV");
+        }
+
+        BlockingQueue<List<Player>> queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicLong imported = new AtomicLong();
+        AtomicInteger batches = new AtomicInteger();
+        Future<?> writer = writers.submit(() -> {
+            List<Player> batch;
+            while ((batch = queue.take()) != END_OF_INPUT) {
+                imported.addAndGet(playerService.insertValidPlayers(batch).size());
+                batches.incrementAndGet();
+            }
+            return null;
+        });
+
+        long lineNumber = 0;
+        long rejected = 0;
+        List<ImportResult.LineError> errors = new ArrayList<>();
+        String failure = null;
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Map<String, Integer> columns = null;
+            List<Player> batch = new ArrayList<>(batchSize);
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.trim().isEmpty()) {
+                    continue;
+                }
+                if (format == ExportFormat.CSV && columns == null) {
+                    columns = csvHeader(line);
+                    continue;
+                }
+                try {
+                    Player player = format == ExportFormat.CSV ? fromCsv(line, columns) : fromJson(line);
+                    player.setId(null);
+                    playerService.validateNewPlayer(player);
+                    batch.add(player);
+                } catch (BadRequestException e) {
+                    rejected++;
+                    if (errors.size() < maxErrors) {
+                        errors.add(new ImportResult.LineError(lineNumber, e.getMessage()));
+                    }
+                }
+                if (batch.size() == batchSize) {
+                    submit(queue, batch, writer);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                submit(queue, batch, writer);
+            }
+        } catch (IllegalStateException e) {
+            failure = e.getMessage();
+        } finally {
+            failure = finish(queue, writer, failure);
+        }
+
+        return new ImportResult(lineNumber, imported.get(), rejected, batches.get(), failure, errors);
+    }
+
+    @Override
+    public void destroy() {
+        writers.shutdownNow();
+    }
+
+    // waits for room in the queue, giving up if the writer has already stopped on an error
+    private void submit(BlockingQueue<List<Player>> queue, List<Player> batch, Future<?> writer) {
+        try {
+            while (!queue.offer(batch, 100, TimeUnit.MILLISECONDS)) {
+                if (writer.isDone()) {
+                    throw new IllegalStateException("import writer stopped");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("import interrupted");
+        }
+    }
+
+    private String finish(BlockingQueue<List<Player>> queue, Future<?> writer, String failure) {
+        if (failure == null) {
+            try {
+                submit(queue, END_OF_INPUT, writer);
+            } catch (IllegalStateException e) {
+                failure = e.getMessage();
+            }
+        }
+        if (failure != null && !writer.isDone()) {
+            writer.cancel(true);
+        }
+        try {
+            writer.get();
+        } catch (ExecutionException e) {
+            return "import writer failed: " + e.getCause().getMessage();
+        } catch (CancellationException e) {
+            return failure;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "import interrupted";
+        }
+        return failure;
+    }
+
+    private Player fromJson(String line) throws BadRequestException {
+        try {
+            Player player = objectMapper.readValue(line, Player.class);
+            if (player == null) {
+                throw new BadRequestException("Data Params IllegalArgumentException");
+            }
+            return player;
+        } catch (JsonProcessingException e) {
+            throw new BadRequestException("malformed JSON: " + e.getOriginalMessage());
+        }
+    }
+
+    private Map<String, Integer> csvHeader(String line) {
+        List<String> names = splitCsv(line);
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim(), i);
+        }
+        return columns;
+    }
+
+    private Player fromCsv(String line, Map<String, Integer> columns) throws BadRequestException {
+        List<String> values = splitCsv(line);
+        Player player = new Player();
+        try {
+            player.setName(csvField(values, columns, "name"));
+            player.setTitle(csvField(values, columns, "title"));
+            String race = csvField(values, columns, "race");
+            player.setRace(race == null ? null : Race.valueOf(race));
+            String profession = csvField(values, columns, "profession");
+            player.setProfession(profession == null ? null : Profession.valueOf(profession));
+            String birthday = csvField(values, columns, "birthday");
+            player.setBirthday(birthday == null ? null : new Date(Long.parseLong(birthday)));
+            String banned = csvField(values, columns, "banned");
+            player.setBanned(banned == null ? null : Boolean.valueOf(banned));
+            String experience = csvField(values, columns, "experience");
+            player.setExperience(experience == null ? null : Integer.valueOf(experience));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("malformed CSV value: " + e.getMessage());
+        }
+        return player;
+    }
+
+    private static String csvField(List<String> values, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= values.size() || values.get(index).isEmpty()) {
+            return null;
+        }
+        return values.get(index);
+    }
+
+    // RFC 4180 fields on a single line: quoted fields may contain separators and doubled quotes
+    private static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,78 @@
+package com.game.service;
+
+import com.game.datasource.ReplicaRouting;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Caches results of filtered list/count queries. Every key carries the write generation it was computed in,
+ * so bumping the generation makes all earlier entries unreachable; they then age out by size or TTL.
+ * Loads shortly after a write read from the primary, see {@link ReplicaRouting#consistentLoad}.
+ */
+@Component
+public class PlayerQueryCache {
+
+    private final boolean enabled;
+    private final Cache<List<Object>, Object> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public PlayerQueryCache(@Value("${player.cache.enabled:true}") boolean enabled,
+                            @Value("${player.cache.maximum-size:10000}") long maximumSize,
+                            @Value("${player.cache.ttl-seconds:60}") long ttlSeconds) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttlSeconds, TimeUnit.SECONDS)
+                .recordStats()
+                .build();
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Supplier<T> loader, Object... filters) {
+        if (!enabled) {
+            return loader.get();
+        }
+        List<Object> key = new ArrayList<>(filters.length + 1);
+        key.add(generation.get());
+        key.addAll(Arrays.asList(filters));
+        return (T) cache.get(key, k -> ReplicaRouting.consistentLoad(loader));
+    }
+
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    public void clear() {
+        invalidate();
+        cache.invalidateAll();
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("generation", generation.get());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        return result;
+    }
+}
@@ -1,38 +1,168 @@
 package com.game.service;
 
+import com.game.controller.PlayerCursor;
+import com.game.controller.PlayerField;
 import com.game.controller.PlayerOrder;
+import com.game.datasource.ReplicaRouting;
+import com.game.dto.BatchItemResult;
+import com.game.dto.PlayersPage;
+import com.game.dto.PlayersUpdate;
+import com.game.dto.PlayersUpdateResult;
 import com.game.entity.Player;
 import com.game.entity.Profession;
 import com.game.entity.Race;
 import com.game.exception.BadRequestException;
+import com.game.exception.PreconditionFailedException;
+import com.game.index.PlayerColumnStore;
 import com.game.repository.PlayerRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.time.LocalDate;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class PlayerService {
 
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
     private final PlayerRepository playersRepo;
+    private final PlayerQueryCache queryCache;
+    private final PlayerColumnStore columnStore;
+    private final PlayerEntityCache entityCache;
+    private final int batchMaxSize;
+    private final int jdbcBatchSize;
+    private final int updateChunkSize;
+    private final PlayerChangeCounter changeCounter;
 
     @Autowired
-    public PlayerService(PlayerRepository playersRepo) {
+    public PlayerService(PlayerRepository playersRepo, PlayerQueryCache queryCache, PlayerColumnStore columnStore, PlayerEntityCache entityCache, PlayerChangeCounter changeCounter,
+                         @Value("${player.batch.max-size:10000}") int batchMaxSize,
+                         @Value("${player.batch.jdbc-batch-size:500}") int jdbcBatchSize,
+                         @Value("${player.bulk-update.chunk-size:1000}") int updateChunkSize) {
         this.playersRepo = playersRepo;
+        this.queryCache = queryCache;
+        this.columnStore = columnStore;
+        this.entityCache = entityCache;
+        this.changeCounter = changeCounter;
+        this.batchMaxSize = batchMaxSize;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.updateChunkSize = updateChunkSize;
     }
 
     public List<Player> getAllPlayersWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize) {
-        return playersRepo.getPlayers(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize);
+        return queryCache.get(() -> columnStore.isActive()
+                        ? columnStore.find(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize)
+                        : playersRepo.getPlayers(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize),
+                "players", name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel,
+                order == null ? PlayerOrder.ID : order, pageNumber == null ? 0 : pageNumber, pageSize == null ? 3 : pageSize);
+    }
+
+    public List<Map<String, Object>> getPlayerFieldsWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize, Set<PlayerField> fields) {
+        return queryCache.get(() -> columnStore.isActive()
+                        ? project(columnStore.find(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize), fields)
+                        : playersRepo.getPlayerFields(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize, fields),
+                "fields", name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel,
+                order == null ? PlayerOrder.ID : order, pageNumber == null ? 0 : pageNumber, pageSize == null ? 3 : pageSize, fields);
+    }
+
+    public static List<Map<String, Object>> project(List<Player> players, Set<PlayerField> fields) {
+        List<Map<String, Object>> rows = new ArrayList<>(players.size());
+        for (Player player : players) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            for (PlayerField field : fields) {
+                row.put(field.getFieldName(), field.valueOf(player));
+            }
+            rows.add(Collections.unmodifiableMap(row));
+        }
+        return rows;
+    }
+
+    public PlayersPage getPlayersPageWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, Integer pageNumber, Integer pageSize) {
+        return queryCache.get(() -> columnStore.isActive()
+                        ? new PlayersPage(columnStore.find(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize),
+                        Math.toIntExact(columnStore.count(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel)))
+                        : playersRepo.getPlayersPage(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, order, pageNumber, pageSize),
+                "page", name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel,
+                order == null ? PlayerOrder.ID : order, pageNumber == null ? 0 : pageNumber, pageSize == null ? 3 : pageSize);
+    }
+
+    public List<Player> getPlayersAfterCursor(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayerOrder order, String cursor, Integer pageSize) throws BadRequestException {
+        if (pageSize != null && pageSize < 1) {
+            throw new BadRequestException("pageSize < 1");
+        }
+        PlayerOrder seekOrder = order == null ? PlayerOrder.ID : order;
+        PlayerCursor seekFrom = cursor.isEmpty() ? null : PlayerCursor.decode(cursor, seekOrder);
+        return playersRepo.getPlayersAfter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, seekOrder, seekFrom, pageSize);
     }
 
     public Integer getAllPlayersCountWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel) {
-        return Math.toIntExact(playersRepo.getPlayersCount(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel));
+        Long count = queryCache.get(() -> columnStore.isActive()
+                        ? columnStore.count(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel)
+                        : playersRepo.getPlayersCount(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel),
+                "count", name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel);
+        return Math.toIntExact(count);
     }
 
     public Player createAndAddPlayer(Player player) throws BadRequestException {
+        validateNewPlayer(player);
+        Player saved = playersRepo.savePlayer(player);
+        columnStore.upsert(saved);
+        changed();
+        return saved;
+    }
+
+    public List<BatchItemResult> createAndAddPlayers(List<Player> players) throws BadRequestException {
+        if (players.size() > batchMaxSize) {
+            throw new BadRequestException(String.format("batch of %d players exceeds %d", players.size(), batchMaxSize));
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(players.size());
+        List<Player> valid = new ArrayList<>(players.size());
+        List<Integer> validIndexes = new ArrayList<>(players.size());
+        for (int i = 0; i < players.size(); i++) {
+            Player player = players.get(i);
+            try {
+                if (player == null) {
+                    throw new BadRequestException("Data Params IllegalArgumentException");
+                }
+                validateNewPlayer(player);
+                valid.add(player);
+                validIndexes.add(i);
+                results.add(null);
+            } catch (BadRequestException e) {
+                results.add(BatchItemResult.rejected(i, e.getMessage()));
+            }
+        }
+
+        if (!valid.isEmpty()) {
+            List<Player> saved = insertValidPlayers(valid);
+            for (int i = 0; i < saved.size(); i++) {
+                results.set(validIndexes.get(i), BatchItemResult.created(validIndexes.get(i), saved.get(i)));
+            }
+        }
+        return results;
+    }
+
+    // players must have passed validateNewPlayer; they are written in JDBC batches inside one transaction
+    public List<Player> insertValidPlayers(List<Player> players) {
+        List<Player> saved = playersRepo.insertPlayers(players, jdbcBatchSize);
+        columnStore.upsertAll(saved);
+        changed();
+        return saved;
+    }
+
+    // checks the fields a new player needs and fills in level and untilNextLevel
+    public void validateNewPlayer(Player player) throws BadRequestException {
         String name = player.getName();
         String title = player.getTitle();
         Integer experience = player.getExperience();
@@ -63,7 +193,6 @@ public class PlayerService {
         int untilNextLevel = getUntilNextLevel(experience, currentLevel);
         player.setLevel(currentLevel);
         player.setUntilNextLevel(untilNextLevel);
-        return playersRepo.save(player);
     }
 
     private int getUntilNextLevel(Integer experience, int currentLevel) {
@@ -75,81 +204,234 @@ public class PlayerService {
         return step.intValue() / 100;
     }
 
-    public Player update(Long id, Player player) throws BadRequestException {
+    /**
+     * Writes the non-null fields of player with a single UPDATE, level and untilNextLevel included when experience
+     * changes. expectedVersions, when given, are part of the UPDATE's WHERE clause. With returnBody the updated row is
+     * read back once; without it the result only carries the id, the written fields and, if known, the new version.
+     * Null when there is no such player.
+     */
+    public Player update(Long id, Player player, Set<Long> expectedVersions, boolean returnBody) throws BadRequestException, PreconditionFailedException {
         if (id < 1) {
             throw new BadRequestException("id < 1 IllegalArgumentException");
         }
 
-        if (player == null) {
-            return playersRepo.getById(id);
+        Player changes = player == null ? null : validateChanges(player);
+        if (changes == null) {
+            Player current = playersRepo.getById(id);
+            if (current != null && expectedVersions != null && !expectedVersions.contains(current.getVersion())) {
+                throw new PreconditionFailedException(String.format("version ={%d} is not one of %s", current.getVersion(), expectedVersions));
+            }
+            return current;
         }
 
-        Player playerToUpdate = playersRepo.getById(id);
-        if (playerToUpdate == null) return null;
+        if (playersRepo.updatePlayer(id, changes, expectedVersions) == 0) {
+            // tell a missing player from a failed If-Match only on this rare path
+            Player current = expectedVersions == null ? null : ReplicaRouting.onPrimary(() -> playersRepo.getById(id));
+            if (current == null) {
+                return null;
+            }
+            throw new PreconditionFailedException(String.format("version ={%d} is not one of %s", current.getVersion(), expectedVersions));
+        }
+        if (!returnBody && !columnStore.isEnabled()) {
+            entityCache.invalidate(id);
+            changed();
+            changes.setId(id);
+            // the new version is only known when a single version could match
+            changes.setVersion(expectedVersions == null || expectedVersions.size() != 1 ? null : expectedVersions.iterator().next() + 1);
+            return changes;
+        }
+        // the column store gets the row as stored, birthday cut to the date, and is updated before the caches are
+        // invalidated, so a list recomputed under the new generation cannot come from the old row
+        Player saved = ReplicaRouting.onPrimary(() -> playersRepo.getById(id));
+        if (saved != null) {
+            columnStore.upsert(saved);
+        }
+        entityCache.invalidate(id);
+        changed();
+        // the response echoes the written values as sent
+        if (saved != null) {
+            copyChanges(changes, saved);
+        }
+        return saved;
+    }
+
+    private static void copyChanges(Player changes, Player target) {
+        if (changes.getName() != null) target.setName(changes.getName());
+        if (changes.getTitle() != null) target.setTitle(changes.getTitle());
+        if (changes.getRace() != null) target.setRace(changes.getRace());
+        if (changes.getProfession() != null) target.setProfession(changes.getProfession());
+        if (changes.getBirthday() != null) target.setBirthday(changes.getBirthday());
+        if (changes.getBanned() != null) target.setBanned(changes.getBanned());
+        if (changes.getExperience() != null) {
+            target.setExperience(changes.getExperience());
+            target.setLevel(changes.getLevel());
+            target.setUntilNextLevel(changes.getUntilNextLevel());
+        }
+    }
 
+    // the fields to write, checked and with level and untilNextLevel derived from experience; null if there are none
+    private Player validateChanges(Player player) throws BadRequestException {
         String name = player.getName();
         String title = player.getTitle();
         Integer experience = player.getExperience();
         Date date = player.getBirthday();
-        Race race = player.getRace();
-        Profession profession = player.getProfession();
-        Boolean banned = player.getBanned();
 
-        if (name == null && date == null && title == null && experience == null && race == null && profession == null && banned == null) {
-            return playersRepo.getById(id);
+        if (name == null && date == null && title == null && experience == null && player.getRace() == null
+                && player.getProfession() == null && player.getBanned() == null) {
+            return null;
         }
 
-        if (name != null) {
-            if (name.length() > 12 || name.equals(""))
-                throw new BadRequestException(String.format("name ={%s} IllegalArgumentException", name));
-            playerToUpdate.setName(name);
+        if (name != null && (name.length() > 12 || name.equals(""))) {
+            throw new BadRequestException(String.format("name ={%s} IllegalArgumentException", name));
+        }
+        if (title != null && title.length() > 30) {
+            throw new BadRequestException("name or title IllegalArgumentException");
+        }
+        if (experience != null && (experience > 10000000 || experience < 0)) {
+            throw new BadRequestException("experience IllegalArgumentException");
+        }
+        if (date != null) {
+            LocalDate localDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
+            if (localDate.getYear() < 2000 || localDate.getYear() > 3000) {
+                throw new BadRequestException("birthday IllegalArgumentException");
+            }
         }
 
-        if (title != null) {
-            if (title.length() > 30)
-                throw new BadRequestException("name or title IllegalArgumentException");
-            playerToUpdate.setTitle(title);
+        Player changes = new Player();
+        changes.setName(name);
+        changes.setTitle(title);
+        changes.setRace(player.getRace());
+        changes.setProfession(player.getProfession());
+        changes.setBirthday(date);
+        changes.setBanned(player.getBanned());
+        if (experience != null) {
+            int currentLevel = getCurrentLevel(experience);
+            changes.setExperience(experience);
+            changes.setLevel(currentLevel);
+            changes.setUntilNextLevel(getUntilNextLevel(experience, currentLevel));
         }
+        return changes;
+    }
 
-        if (race != null) {
-            playerToUpdate.setRace(race);
+    public PlayersUpdateResult updateAllWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, PlayersUpdate update) throws BadRequestException {
+        if (update == null || update.isEmpty()) {
+            throw new BadRequestException("empty bulk update IllegalArgumentException");
         }
-        if (profession != null) {
-            playerToUpdate.setProfession(profession);
+        if (update.getExperience() != null && update.getAddExperience() != null) {
+            throw new BadRequestException("experience and addExperience together IllegalArgumentException");
+        }
+        if (update.getExperience() != null && (update.getExperience() > 10000000 || update.getExperience() < 0)) {
+            throw new BadRequestException("experience IllegalArgumentException");
         }
-        if (banned != null) {
-            playerToUpdate.setBanned(banned);
+        if (update.getAddExperience() != null && Math.abs((long) update.getAddExperience()) > 10000000) {
+            throw new BadRequestException("addExperience IllegalArgumentException");
+        }
+        if (update.getTitle() != null && update.getTitle().length() > 30) {
+            throw new BadRequestException("title IllegalArgumentException");
         }
 
-        if (experience != null) {
-            if (experience > 10000000 || experience < 0)
-                throw new BadRequestException("experience IllegalArgumentException");
-            int currentLevel = getCurrentLevel(experience);
-            int untilNextLevel = getUntilNextLevel(experience, currentLevel);
-            playerToUpdate.setExperience(experience);
-            playerToUpdate.setLevel(currentLevel);
-            playerToUpdate.setUntilNextLevel(untilNextLevel);
+        // chunks are updateChunkSize matching rows each, bounded by the id that closes them, so a sparse
+        // or skewed id distribution does not turn a chunk into one huge update or many empty ones
+        long updated = 0;
+        int chunks = 0;
+        long afterId = 0;
+        while (true) {
+            Long toId = playersRepo.getChunkEndId(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, afterId, updateChunkSize);
+            int chunkUpdated = playersRepo.updatePlayers(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, update, afterId, toId);
+            if (toId == null && chunkUpdated == 0) {
+                break;
+            }
+            if (chunkUpdated > 0 && columnStore.isEnabled()) {
+                columnStore.upsertAll(playersRepo.findByIdBetween(afterId + 1, toId == null ? Long.MAX_VALUE : toId));
+            }
+            updated += chunkUpdated;
+            chunks++;
+            if (toId == null) {
+                break;
+            }
+            afterId = toId;
         }
 
-        if (date != null) {
-            LocalDate localDate = date.toInstant().atZone(ZoneId.systemDefault()).toLocalDate();
-            if (localDate.getYear() < 2000 || localDate.getYear() > 3000) {
-                throw new BadRequestException("birthday IllegalArgumentException");
-            } else {
-                playerToUpdate.setBirthday(date);
+        if (updated > 0) {
+            entityCache.invalidateAll();
+            changed();
+        }
+        return new PlayersUpdateResult(updated, chunks);
+    }
+
+    // the next ids matching the filter after afterId, at most limit of them, in id order
+    public List<Long> getPlayerIdsWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, Long afterId, int limit) {
+        return playersRepo.getPlayerIdsAfter(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, afterId, limit);
+    }
+
+    // deletes those of ids that still match the filter, in one statement and transaction
+    public int deletePlayersWithFilter(String name, String title, Race race, Profession profession, Long after, Long before, Boolean banned, Integer minExperience, Integer maxExperience, Integer minLevel, Integer maxLevel, List<Long> ids) {
+        int deleted = playersRepo.deletePlayers(name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel, ids);
+        for (Long id : ids) {
+            entityCache.invalidate(id);
+        }
+        if (columnStore.isEnabled()) {
+            ids.forEach(columnStore::remove);
+            if (deleted < ids.size()) {
+                columnStore.upsertAll(playersRepo.findAllById(ids));
             }
         }
-        return playersRepo.save(playerToUpdate);
+        if (deleted > 0) {
+            changed();
+        }
+        return deleted;
     }
 
+    // merged experience deltas by player id, applied in SQL with level recomputed once per player
+    public int applyExperienceDeltas(Map<Long, Long> deltas) {
+        int updated = playersRepo.addExperience(deltas, jdbcBatchSize);
+        // the deltas are committed: a failed refresh must not reach the caller, which would apply them again;
+        // the caches are invalidated after it either way, as on every other write path
+        try {
+            if (columnStore.isEnabled()) {
+                columnStore.upsertAll(playersRepo.findAllById(deltas.keySet()));
+            }
+        } catch (RuntimeException e) {
+            logger.warn("column store refresh after experience flush failed, stale until the next reload", e);
+        } finally {
+            for (Long id : deltas.keySet()) {
+                entityCache.invalidate(id);
+            }
+            changed();
+        }
+        return updated;
+    }
 
     public Integer deletePlayerById(Long id) throws BadRequestException {
         if (id < 1) throw new BadRequestException("id < 1");
-        return playersRepo.deletePlayerById(id);
+        Integer deleted = playersRepo.deletePlayerById(id);
+        entityCache.invalidate(id);
+        columnStore.remove(id);
+        changed();
+        return deleted;
+    }
+
+    /**
+     * The version behind the collection ETags: the query cache generation, which every write made here bumps at once
+     * and writes of other instances within one change counter sync, see {@link PlayerChangeCounter}. Read before the
+     * body is computed, so a body is never older than its ETag. Null with read replicas, where the body could come
+     * from a replica that is behind the generation.
+     */
+    public Long getCollectionVersion() {
+        if (ReplicaRouting.isReplicated()) {
+            return null;
+        }
+        return queryCache.getGeneration();
+    }
+
+    // after a committed write: cached results are dropped here and the other instances learn of it on the next sync
+    private void changed() {
+        queryCache.invalidate();
+        changeCounter.markChanged();
     }
 
     public Player getPlayerById(Long id) throws BadRequestException {
         if (id < 1) throw new BadRequestException("id < 1");
-        return playersRepo.getById(id);
+        return entityCache.get(id, playersRepo::getById);
     }
 }
@@ -0,0 +1,21 @@
+-- every PlayerOrder key; InnoDB appends the primary key, so these also serve ORDER BY <key>, id
+CREATE INDEX idx_player_name ON player (name);
+CREATE INDEX idx_player_experience ON player (experience);
+CREATE INDEX idx_player_birthday ON player (birthday);
+CREATE INDEX idx_player_level ON player (level);
+
+-- race / profession equality filters combined with each sort order (ORDER BY id comes from the implicit id suffix)
+CREATE INDEX idx_player_race ON player (race);
+CREATE INDEX idx_player_race_name ON player (race, name);
+CREATE INDEX idx_player_race_experience ON player (race, experience);
+CREATE INDEX idx_player_race_birthday ON player (race, birthday);
+CREATE INDEX idx_player_race_level ON player (race, level);
+
+CREATE INDEX idx_player_profession ON player (profession);
+CREATE INDEX idx_player_profession_name ON player (profession, name);
+CREATE INDEX idx_player_profession_experience ON player (profession, experience);
+CREATE INDEX idx_player_profession_birthday ON player (profession, birthday);
+CREATE INDEX idx_player_profession_level ON player (profession, level);
+
+-- covering index for counts over any prefix of race, profession, banned
+CREATE INDEX idx_player_race_profession_banned ON player (race, profession, banned);
@@ -0,0 +1,2 @@
+-- optimistic locking and ETags; bulk UPDATE statements increment it as well
+ALTER TABLE player ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,9 @@
+-- shared change counter behind the collection ETags; every write transaction increments it
+CREATE TABLE player_changes
+(
+    id      INT    NOT NULL,
+    counter BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO player_changes(id, counter) VALUES (1, 0);
@@ -0,0 +1,6 @@
+-- banned equality filter combined with each sort order (ORDER BY id and the count come from the implicit id suffix)
+CREATE INDEX idx_player_banned ON player (banned);
+CREATE INDEX idx_player_banned_name ON player (banned, name);
+CREATE INDEX idx_player_banned_experience ON player (banned, experience);
+CREATE INDEX idx_player_banned_birthday ON player (banned, birthday);
+CREATE INDEX idx_player_banned_level ON player (banned, level);
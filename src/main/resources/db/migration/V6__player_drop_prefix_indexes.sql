@@ -0,0 +1,10 @@
+-- idx_player_race, idx_player_profession and idx_player_banned are left prefixes of the composite indexes next to them
+DROP INDEX idx_player_race ON player;
+DROP INDEX idx_player_profession ON player;
+DROP INDEX idx_player_banned ON player;
+
+-- race and profession equality filters together combined with each sort order
+CREATE INDEX idx_player_race_profession_name ON player (race, profession, name);
+CREATE INDEX idx_player_race_profession_experience ON player (race, profession, experience);
+CREATE INDEX idx_player_race_profession_birthday ON player (race, profession, birthday);
+CREATE INDEX idx_player_race_profession_level ON player (race, profession, level);
@@ -3,6 +3,7 @@ package com.game.controller;
 import com.game.config.AppConfig;
 import com.game.config.MyWebAppInit;
 import com.game.config.WebConfig;
+import com.game.metrics.ServerTimingFilter;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -39,6 +40,7 @@ public abstract class AbstractTest {
                     response.setCharacterEncoding("UTF-8");
                     chain.doFilter(request, response);
                 }))
+                .addFilter(new ServerTimingFilter())
                 .build();
     }
 }
@@ -0,0 +1,128 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.TestsHelper;
+import com.game.datasource.DbBulkhead;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"player.async.enabled=true", "player.async.threads=1", "player.async.queue-capacity=1",
+        "player.async.retry-after-seconds=2"})
+public class AsyncBulkheadTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private DbBulkhead bulkhead;
+
+    //test1
+    @Test
+    public void getRunsOnBulkhead() throws Exception {
+        MvcResult started = mockMvc.perform(get("/rest/players/5"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+
+        MvcResult count = mockMvc.perform(get("/rest/players/count?race=ELF"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(count))
+                .andExpect(status().isOk())
+                .andExpect(content().string("10"));
+    }
+
+    //test2
+    @Test
+    public void updateRunsOnBulkhead() throws Exception {
+        MvcResult started = mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Асинхронный\"}"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+        MvcResult read = mockMvc.perform(get("/rest/players/5")).andReturn();
+        String body = mockMvc.perform(asyncDispatch(read))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("Асинхронный POST /rest/players/{id} не изменил игрока.", body.contains("Асинхронный"));
+    }
+
+    //test3
+    @Test
+    public void fullQueueIsShed() throws Exception {
+        long rejectedBefore = stats().get("rejected").asLong();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch running = new CountDownLatch(1);
+        bulkhead.submit(() -> {
+            running.countDown();
+            return release.await(10, TimeUnit.SECONDS);
+        });
+        try {
+            assertTrue("Поток bulkhead не начал выполнение.", running.await(10, TimeUnit.SECONDS));
+            bulkhead.submit(() -> release.await(10, TimeUnit.SECONDS));
+
+            mockMvc.perform(get("/rest/players/5"))
+                    .andExpect(request().asyncNotStarted())
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(header().string(HttpHeaders.RETRY_AFTER, "2"));
+
+            JsonNode stats = stats();
+            assertEquals("Неверная глубина очереди bulkhead: " + stats, 1, stats.get("queued").asInt());
+            assertEquals("Отказ не учтен в статистике bulkhead: " + stats, rejectedBefore + 1, stats.get("rejected").asLong());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    //test4
+    @Test
+    public void batchAndBulkDeleteRunOnBulkhead() throws Exception {
+        MvcResult batch = mockMvc.perform(post("/rest/players/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[" + TestsHelper.BANNED_TRUE_JSON + "]"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(batch))
+                .andExpect(status().isOk());
+
+        MvcResult dryRun = mockMvc.perform(delete("/rest/players?race=ELF&dryRun=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(dryRun))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Неверное число игроков в пробном удалении: " + body, 10, mapper.readTree(body).get("matching").asInt());
+    }
+
+    private JsonNode stats() throws Exception {
+        return mapper.readTree(mockMvc.perform(get("/rest/admin/bulkhead"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
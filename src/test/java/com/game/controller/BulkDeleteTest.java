@@ -0,0 +1,99 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"player.bulk-delete.chunk-size=3", "player.bulk-delete.pause-ms=300"})
+public class BulkDeleteTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void dryRunOnlyCounts() throws Exception {
+        int banned = count("/rest/players/count?banned=true");
+
+        JsonNode result = json(mockMvc.perform(delete("/rest/players?banned=true&dryRun=true"))
+                .andExpect(status().isOk())
+                .andReturn());
+
+        assertEquals("Неверное количество игроков при DELETE /rest/players с dryRun=true.", banned, result.get("matching").asInt());
+        assertEquals("DELETE /rest/players с dryRun=true не должен удалять игроков.", banned, count("/rest/players/count?banned=true"));
+    }
+
+    //test2
+    @Test
+    public void deleteInChunks() throws Exception {
+        int total = count("/rest/players/count");
+        int elves = count("/rest/players/count?race=ELF");
+
+        MvcResult started = mockMvc.perform(delete("/rest/players?race=ELF"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        JsonNode job = await(started.getResponse().getHeader(HttpHeaders.LOCATION));
+
+        assertEquals("Задание удаления должно завершиться: " + job, "COMPLETED", job.get("state").asText());
+        assertEquals("Неверное количество удаленных игроков: " + job, elves, job.get("deleted").asInt());
+        assertEquals("Удаление должно идти порциями по chunk-size: " + job, (elves + 2) / 3, job.get("chunks").asInt());
+        assertEquals("Игроки, подходящие под фильтр, не удалены.", 0, count("/rest/players/count?race=ELF"));
+        assertEquals("Удалены лишние игроки.", total - elves, count("/rest/players/count"));
+    }
+
+    //test3
+    @Test
+    public void cancelStopsAfterCurrentChunk() throws Exception {
+        int total = count("/rest/players/count");
+
+        MvcResult started = mockMvc.perform(delete("/rest/players?minLevel=0"))
+                .andExpect(status().isAccepted())
+                .andReturn();
+        String location = started.getResponse().getHeader(HttpHeaders.LOCATION);
+        mockMvc.perform(delete(location)).andExpect(status().isOk());
+        JsonNode job = await(location);
+
+        assertEquals("Отмененное задание должно остановиться: " + job, "CANCELLED", job.get("state").asText());
+        assertTrue("Отмененное задание не должно удалять всех игроков: " + job, job.get("deleted").asInt() < total);
+        assertEquals("Количество удаленных игроков не совпадает с прогрессом задания.",
+                total - job.get("deleted").asInt(), count("/rest/players/count"));
+    }
+
+    //test4
+    @Test
+    public void deleteWithoutFilterIsBadRequest() throws Exception {
+        mockMvc.perform(delete("/rest/players"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/rest/players/delete-jobs/100500"))
+                .andExpect(status().isNotFound());
+    }
+
+    private JsonNode await(String location) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (true) {
+            JsonNode job = json(mockMvc.perform(get(location)).andExpect(status().isOk()).andReturn());
+            String state = job.get("state").asText();
+            if (!state.equals("QUEUED") && !state.equals("RUNNING") && !state.equals("CANCELLING")
+                    || System.currentTimeMillis() > deadline) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+    }
+
+    private int count(String url) throws Exception {
+        return Integer.parseInt(mockMvc.perform(get(url)).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    private JsonNode json(MvcResult result) throws Exception {
+        return mapper.readTree(result.getResponse().getContentAsString());
+    }
+}
@@ -0,0 +1,258 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.index.PlayerColumnStore;
+import com.game.repository.PlayerRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.index.enabled=true")
+public class ColumnStoreTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    @Autowired
+    private PlayerColumnStore columnStore;
+
+    @Autowired
+    private PlayerRepository playersRepo;
+
+    @Before
+    public void reloadStore() {
+        columnStore.reload();
+    }
+
+    //test1
+    @Test
+    public void countWithFiltersRaceProfessionBanned() throws Exception {
+        int expected = testsHelper.getPlayerInfosByBaned(true,
+                testsHelper.getPlayerInfosByRace(Race.DWARF,
+                        testsHelper.getPlayerInfosByProfession(Profession.CLERIC,
+                                testsHelper.getAllPlayers()))).size();
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count из колоночного индекса.",
+                expected, count("/rest/players/count?race=DWARF&profession=CLERIC&banned=true"));
+    }
+
+    //test2
+    @Test
+    public void countWithFiltersNameAfterMaxLevel() throws Exception {
+        int expected = testsHelper.getPlayerInfosByMaxLevel(40,
+                testsHelper.getPlayerInfosByAfter(1104530400000L,
+                        testsHelper.getPlayerInfosByName("ри",
+                                testsHelper.getAllPlayers()))).size();
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count из колоночного индекса с параметрами name, after и maxLevel.",
+                expected, count("/rest/players/count?name=ри&after=1104530400000&maxLevel=40"));
+    }
+
+    //test3
+    @Test
+    public void listWithFiltersOrderByExperienceSecondPage() throws Exception {
+        List<PlayerInfoTest> actual = list("/rest/players?minLevel=10&order=EXPERIENCE&pageNumber=1&pageSize=4");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByMinLevel(10, testsHelper.getAllPlayers())
+                .stream()
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.experience).thenComparing(p -> p.id))
+                .skip(4)
+                .limit(4)
+                .collect(Collectors.toList());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players из колоночного индекса.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void writesThroughServiceAreVisible() throws Exception {
+        int before = count("/rest/players/count");
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/2"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/rest/players/3"))
+                .andExpect(status().isOk());
+
+        assertEquals("Колоночный индекс не учитывает изменения, сделанные через сервис.", before - 1, count("/rest/players/count"));
+    }
+
+    //test5
+    @Test
+    public void listWithBitmapAndRangeFilters() throws Exception {
+        List<PlayerInfoTest> actual = list("/rest/players?banned=false&race=HUMAN&maxLevel=40&order=LEVEL&pageSize=20");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByMaxLevel(40,
+                testsHelper.getPlayerInfosByRace(Race.HUMAN,
+                        testsHelper.getPlayerInfosByBaned(false, testsHelper.getAllPlayers())))
+                .stream()
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.level).thenComparing(p -> p.id))
+                .collect(Collectors.toList());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players из колоночного индекса с параметрами banned, race и maxLevel.", expected, actual);
+    }
+
+    //test6
+    @Test
+    public void countWithCyrillicNameAndTitleSubstrings() throws Exception {
+        int expected = testsHelper.getPlayerInfosByTitle("ульф",
+                testsHelper.getPlayerInfosByName("крашш", testsHelper.getAllPlayers())).size();
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count из колоночного индекса с параметрами name и title.",
+                expected, count("/rest/players/count?name=крашш&title=ульф"));
+    }
+
+    //test7
+    @Test
+    public void renamedPlayerIsFoundByNewNameOnly() throws Exception {
+        mockMvc.perform(post("/rest/players/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Зюзябрик\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("Колоночный индекс находит игрока по старому имени.", 0, count("/rest/players/count?name=Никрашш"));
+        assertEquals("Колоночный индекс не находит игрока по новому имени.", 1, count("/rest/players/count?name=юзябр"));
+    }
+
+    //test8
+    @Test
+    public void orderByNameIgnoresCaseLikeDatabase() throws Exception {
+        for (String name : Arrays.asList("Beta", "яблоко", "alpha", "bz", "Арбуз", "ALPHA2")) {
+            mockMvc.perform(post("/rest/players/")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestsHelper.NORMAL_JSON.replace("Амарылис", name).replace("Прозелит", "Сортировка")))
+                    .andExpect(status().isOk());
+        }
+
+        List<String> actual = list("/rest/players?title=Сортировка&order=NAME&pageSize=10").stream()
+                .map(p -> p.name).collect(Collectors.toList());
+        List<String> database = playersRepo.getPlayers(null, "Сортировка", null, null, null, null, null, null, null,
+                null, null, PlayerOrder.NAME, 0, 10).stream().map(Player::getName).collect(Collectors.toList());
+
+        assertEquals("Колоночный индекс сортирует по имени с учетом регистра.",
+                Arrays.asList("alpha", "ALPHA2", "Beta", "bz", "Арбуз", "яблоко"), actual);
+        assertEquals("Сортировка по имени в колоночном индексе расходится с базой данных.", database, actual);
+    }
+
+    //test9
+    @Test
+    public void updatedBirthdayIsCutToDateLikeDatabase() throws Exception {
+        long midnight = LocalDate.of(2005, 6, 15).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long noon = midnight + TimeUnit.HOURS.toMillis(12);
+        long morning = midnight + TimeUnit.HOURS.toMillis(6);
+        mockMvc.perform(post("/rest/players/2")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"birthday\": " + noon + "}"))
+                .andExpect(status().isOk());
+
+        long database = playersRepo.getPlayersCount(null, null, null, null, morning, null, null, null, null, null, null);
+        assertEquals("Фильтр after в колоночном индексе расходится с базой данных после изменения даты рождения.",
+                (int) database, count("/rest/players/count?after=" + morning));
+    }
+
+    //test10
+    @Test
+    public void createdBirthdayIsCutToDateLikeDatabase() throws Exception {
+        long midnight = LocalDate.of(2005, 6, 15).atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        long noon = midnight + TimeUnit.HOURS.toMillis(12);
+        long morning = midnight + TimeUnit.HOURS.toMillis(6);
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Полдень\", \"title\": \"Дата\", \"race\": \"HUMAN\", \"profession\": \"WARRIOR\", "
+                        + "\"birthday\": " + noon + ", \"banned\": false, \"experience\": 1000}"))
+                .andExpect(status().isOk());
+
+        long database = playersRepo.getPlayersCount(null, null, null, null, morning, null, null, null, null, null, null);
+        assertEquals("Фильтр after в колоночном индексе расходится с базой данных после создания игрока.",
+                (int) database, count("/rest/players/count?after=" + morning));
+    }
+
+    //test11
+    @Test
+    public void olderVersionDoesNotOverwriteRow() throws Exception {
+        Player current = playersRepo.findById(2L).get();
+        Player stale = new Player(current.getId(), "Устаревший", current.getTitle(), current.getRace(),
+                current.getProfession(), current.getBirthday(), current.getBanned(), current.getExperience(),
+                current.getLevel(), current.getUntilNextLevel());
+        stale.setVersion(current.getVersion() - 1);
+        columnStore.upsert(stale);
+
+        assertEquals("Колоночный индекс принял устаревшую версию игрока.", 0, count("/rest/players/count?name=Устаревший"));
+        assertEquals("Колоночный индекс потерял актуальную версию игрока.", 1, count("/rest/players/count?name=" + current.getName()));
+    }
+
+    //test12
+    @Test
+    public void nameFilterIgnoresAccentsLikeDatabaseCollation() throws Exception {
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON.replace("Амарылис", "Éloïse").replace("Прозелит", "Акцент")))
+                .andExpect(status().isOk());
+
+        assertEquals("Колоночный индекс учитывает диакритику в фильтре name, в отличие от utf8_general_ci.",
+                1, count("/rest/players/count?title=Акцент&name=eloi"));
+        assertEquals("Колоночный индекс не находит игрока по имени с диакритикой.",
+                1, count("/rest/players/count?title=Акцент&name=ÉLOÏ"));
+    }
+
+    //test13
+    @Test
+    public void underscoreInNameFilterIsWildcardLikeDatabase() throws Exception {
+        for (String name : Arrays.asList("Под_черк", "Подачерк")) {
+            mockMvc.perform(post("/rest/players/")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(TestsHelper.NORMAL_JSON.replace("Амарылис", name).replace("Прозелит", "Подчерк")))
+                    .andExpect(status().isOk());
+        }
+
+        long wildcard = playersRepo.getPlayersCount("од_че", "Подчерк", null, null, null, null, null, null, null, null, null);
+        long escaped = playersRepo.getPlayersCount("од\\_че", "Подчерк", null, null, null, null, null, null, null, null, null);
+        assertEquals("Символ _ в фильтре name должен совпадать с любым символом, как в LIKE.",
+                2, count("/rest/players/count?title=Подчерк&name=од_че"));
+        assertEquals("Фильтр name с _ в колоночном индексе расходится с базой данных.",
+                (int) wildcard, count("/rest/players/count?title=Подчерк&name=од_че"));
+        assertEquals("Экранированный символ _ в колоночном индексе расходится с базой данных.",
+                (int) escaped, Integer.parseInt(mockMvc.perform(get("/rest/players/count?title=Подчерк&name={name}", "од\\_че"))
+                        .andExpect(status().isOk())
+                        .andReturn().getResponse().getContentAsString()));
+    }
+
+    private int count(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(contentAsString);
+    }
+
+    private List<PlayerInfoTest> list(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, typeReference);
+    }
+}
@@ -0,0 +1,63 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class CreatePlayersBatchTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void createBatchWithInvalidItems() throws Exception {
+        String body = "[" + TestsHelper.NORMAL_JSON + "," + TestsHelper.NEGATIVE_EXPERIENCE_JSON + "," + TestsHelper.BANNED_TRUE_JSON + "]";
+        JsonNode results = mapper.readTree(mockMvc.perform(post("/rest/players/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+
+        assertEquals("Возвращается не правильное количество результатов при запросе POST /rest/players/batch.", 3, results.size());
+        assertEquals("Первый игрок должен быть создан.", 200, results.get(0).get("status").asInt());
+        assertEquals("Игрок с отрицательным опытом не должен быть создан.", 400, results.get(1).get("status").asInt());
+        assertEquals("Третий игрок должен быть создан.", 200, results.get(2).get("status").asInt());
+
+        PlayerInfoTest expected = new PlayerInfoTest(41L, "Амарылис", "Прозелит", Race.HUMAN, Profession.CLERIC, 988059600000L, false, 63986, 35, 2614);
+        PlayerInfoTest actual = mapper.treeToValue(results.get(0).get("player"), PlayerInfoTest.class);
+        assertEquals("Возвращается не правильный игрок в результате POST /rest/players/batch.", expected, actual);
+        assertEquals("Игроки пакета получают идентификаторы по порядку.", 42L, results.get(2).get("player").get("id").asLong());
+
+        String count = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("В базу сохранены не все корректные игроки пакета.", 42, Integer.parseInt(count));
+
+        String created = mockMvc.perform(get("/rest/players/42"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertEquals("Созданный пакетом игрок не читается по идентификатору.", true, mapper.readValue(created, PlayerInfoTest.class).banned);
+    }
+
+    //test2
+    @Test
+    public void createEmptyBatch() throws Exception {
+        String contentAsString = mockMvc.perform(post("/rest/players/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertEquals("Пустой пакет должен возвращать пустой список.", "[]", contentAsString);
+    }
+}
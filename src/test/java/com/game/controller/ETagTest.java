@@ -0,0 +1,141 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.metrics.SqlCapture;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class ETagTest extends AbstractTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void getPlayerNotModified() throws Exception {
+        String etag = etag("/rest/players/5");
+
+        assertEquals("Не правильный ETag у GET /rest/players/{id}.", "\"0\"", etag);
+        mockMvc.perform(get("/rest/players/5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    //test2
+    @Test
+    public void updateWithStaleIfMatchFails() throws Exception {
+        String etag = etag("/rest/players/5");
+
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content("{\"name\": \"Первый\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, etag)
+                .content("{\"name\": \"Второй\"}"))
+                .andExpect(status().isPreconditionFailed());
+
+        String body = mockMvc.perform(get("/rest/players/5"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andReturn().getResponse().getContentAsString();
+        assertTrue("POST /rest/players/{id} с устаревшим If-Match изменил игрока.", body.contains("Первый"));
+    }
+
+    //test3
+    @Test
+    public void listNotModifiedUntilWrite() throws Exception {
+        String url = "/rest/players?race=ELF&order=LEVEL";
+        String etag = etag(url);
+
+        assertTrue("ETag списка игроков должен быть слабым: " + etag, etag.startsWith("W/"));
+        try (SqlCapture capture = SqlCapture.start()) {
+            mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+            mockMvc.perform(get("/rest/players/count?race=ELF").header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+
+            assertEquals("Ответ 304 не должен выполнять запросы к базе: " + capture.getStatements(), 0, capture.count());
+        }
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.BANNED_TRUE_JSON))
+                .andExpect(status().isOk());
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    //test4
+    @Test
+    public void bulkUpdateChangesPlayerETag() throws Exception {
+        String etag = etag("/rest/players/5");
+
+        mockMvc.perform(post("/rest/players/update?minLevel=30&maxLevel=40")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"addExperience\": 10}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/5").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    //test5
+    @Test
+    public void writeByAnotherInstanceChangesListETag() throws Exception {
+        String url = "/rest/players/count?race=ELF";
+        mockMvc.perform(post("/rest/admin/changes/sync")).andExpect(status().isOk());
+        String etag = etag(url);
+
+        new JdbcTemplate(dataSource).update("UPDATE player_changes SET counter = counter + 1 WHERE id = 1");
+        mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(post("/rest/admin/changes/sync")).andExpect(status().isOk());
+
+        String changed = mockMvc.perform(get(url).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue("ETag списка должен меняться после записи другим экземпляром: " + changed, !etag.equals(changed));
+    }
+
+    //test6
+    @Test
+    public void ifMatchListMatchesAnyTag() throws Exception {
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\", W/\"0\"")
+                .content("{\"name\": \"Первый\"}"))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\", \"0\"")
+                .content("{\"name\": \"Первый\"}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull("Нет ETag в ответе GET " + url, etag);
+        return etag;
+    }
+}
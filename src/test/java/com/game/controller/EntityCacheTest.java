@@ -0,0 +1,74 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.service.PlayerEntityCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.entity-cache.enabled=true")
+public class EntityCacheTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private PlayerEntityCache entityCache;
+
+    @Before
+    public void clearCache() {
+        entityCache.invalidateAll();
+    }
+
+    //test1
+    @Test
+    public void repeatedGetIsServedFromCache() throws Exception {
+        long hitsBefore = (Long) entityCache.getStats().get("hits");
+
+        PlayerInfoTest first = getPlayer(5);
+        PlayerInfoTest second = getPlayer(5);
+
+        assertEquals("Повторный запрос GET /rest/players/{id} возвращает другой результат.", first, second);
+        assertEquals("Повторный запрос GET /rest/players/{id} не попал в кэш.", hitsBefore + 1, entityCache.getStats().get("hits"));
+    }
+
+    //test2
+    @Test
+    public void updateIsVisibleRightAfterWrite() throws Exception {
+        getPlayer(5);
+
+        mockMvc.perform(post("/rest/players/5")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"title\": \"Новый титул\"}"))
+                .andExpect(status().isOk());
+
+        assertEquals("После обновления GET /rest/players/{id} возвращает устаревшие данные.", "Новый титул", getPlayer(5).title);
+    }
+
+    //test3
+    @Test
+    public void deletedPlayerIsNotServedFromCache() throws Exception {
+        getPlayer(5);
+
+        mockMvc.perform(delete("/rest/players/5"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/rest/players/5"))
+                .andExpect(status().isNotFound());
+    }
+
+    private PlayerInfoTest getPlayer(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
@@ -0,0 +1,140 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.dto.ExperienceEvent;
+import com.game.service.ExperienceIngestService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.xp.max-pending-players=4")
+public class ExperienceIngestTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Autowired
+    private ExperienceIngestService experienceIngest;
+
+    //test1
+    @Test
+    public void deltasAreCoalescedAndAppliedOnFlush() throws Exception {
+        PlayerInfoTest first = testsHelper.getPlayerInfosById(1);
+        PlayerInfoTest second = testsHelper.getPlayerInfosById(2);
+
+        submit("[{\"playerId\": 1, \"delta\": 100}, {\"playerId\": 1, \"delta\": 200}, {\"playerId\": 2, \"delta\": 50}, {\"playerId\": 1, \"delta\": -50}]")
+                .andExpect(status().isAccepted());
+        assertEquals("Опыт не должен меняться до сброса буфера.", first.experience, getPlayer(1).experience);
+
+        flush();
+
+        assertPlayer(getPlayer(1), first.experience + 250);
+        assertPlayer(getPlayer(2), second.experience + 50);
+    }
+
+    //test2
+    @Test
+    public void experienceIsClampedAtZero() throws Exception {
+        submit("[{\"playerId\": 3, \"delta\": -20000000}]").andExpect(status().isAccepted());
+        flush();
+
+        assertPlayer(getPlayer(3), 0);
+    }
+
+    //test3
+    @Test
+    public void fullBufferRejectsWithRetryAfter() throws Exception {
+        submit("[{\"playerId\": 1, \"delta\": 1}, {\"playerId\": 2, \"delta\": 1}, {\"playerId\": 3, \"delta\": 1}]")
+                .andExpect(status().isAccepted());
+        submit("[{\"playerId\": 4, \"delta\": 1}, {\"playerId\": 5, \"delta\": 1}]")
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "1"));
+
+        flush();
+
+        submit("[{\"playerId\": 4, \"delta\": 1}, {\"playerId\": 5, \"delta\": 1}]")
+                .andExpect(status().isAccepted());
+        flush();
+    }
+
+    //test4
+    @Test
+    public void invalidEventsAreRejected() throws Exception {
+        submit("[{\"playerId\": 0, \"delta\": 1}]").andExpect(status().isBadRequest());
+        submit("[{\"playerId\": 1}]").andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void concurrentBatchesStayWithinLimit() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                long playerId = 10 + 2 * i;
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return experienceIngest.submit(Arrays.asList(new ExperienceEvent(playerId, 1), new ExperienceEvent(playerId + 1, 1)));
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            for (Future<Boolean> result : results) {
+                accepted += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+
+            int pending = (Integer) experienceIngest.getStats().get("pendingPlayers");
+            assertEquals("Параллельные пакеты превысили max-pending-players: " + pending, 2, accepted);
+            assertEquals("Неверное число ожидающих игроков.", 4, pending);
+        } finally {
+            executor.shutdownNow();
+            flush();
+        }
+    }
+
+    private void assertPlayer(PlayerInfoTest player, int experience) {
+        int level = (int) (Math.sqrt(2500.0 + 200.0 * experience) - 50) / 100;
+        assertEquals("Опыт не правильно начислен после POST /rest/players/xp.", experience, player.experience);
+        assertEquals("Уровень не пересчитан после POST /rest/players/xp.", level, player.level);
+        assertEquals("Опыт до следующего уровня не пересчитан после POST /rest/players/xp.",
+                50 * (level + 1) * (level + 2) - experience, player.untilNextLevel);
+    }
+
+    private ResultActions submit(String body) throws Exception {
+        return mockMvc.perform(post("/rest/players/xp")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private void flush() throws Exception {
+        mockMvc.perform(post("/rest/admin/xp/flush")).andExpect(status().isOk());
+    }
+
+    private PlayerInfoTest getPlayer(long id) throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/" + id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, PlayerInfoTest.class);
+    }
+}
@@ -0,0 +1,112 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import com.game.service.PlayerExportService;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = {"player.list.max-page-size=10", "player.export.fetch-size=4"})
+public class ExportPlayersTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    @Autowired
+    private PlayerExportService exportService;
+
+    //test1
+    @Test
+    public void exportNdjsonWithFilter() throws Exception {
+        String content = stream("/rest/players/export?race=HUMAN&order=LEVEL");
+
+        List<PlayerInfoTest> actual = new ArrayList<>();
+        for (String line : content.split("\n")) {
+            actual.add(mapper.readValue(line, PlayerInfoTest.class));
+        }
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.HUMAN, testsHelper.getAllPlayers())
+                .stream()
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.level).thenComparing(p -> p.id))
+                .collect(Collectors.toList());
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/export.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void exportCsvWithoutFilters() throws Exception {
+        String[] lines = stream("/rest/players/export?format=CSV").split("\n");
+
+        assertEquals("Не правильный заголовок CSV при запросе GET /rest/players/export.",
+                "id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel", lines[0]);
+        assertEquals("Не правильное количество строк CSV при запросе GET /rest/players/export.",
+                testsHelper.getAllPlayers().size() + 1, lines.length);
+
+        PlayerInfoTest first = testsHelper.getPlayerInfosById(1);
+        String expected = String.join(",", String.valueOf(first.id), first.name, first.title, first.race.name(),
+                first.profession.name(), String.valueOf(first.birthday), String.valueOf(first.banned),
+                String.valueOf(first.experience), String.valueOf(first.level), String.valueOf(first.untilNextLevel));
+        assertEquals("Не правильная строка CSV при запросе GET /rest/players/export.", expected, lines[1]);
+    }
+
+    //test3
+    @Test
+    public void oversizePageIsStreamed() throws Exception {
+        String content = stream("/rest/players?pageNumber=1&pageSize=15");
+        List<PlayerInfoTest> actual = mapper.readValue(content, typeReference);
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(1, 15, testsHelper.getAllPlayers());
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с большим pageSize.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void exportFlushesOncePerFetch() throws Exception {
+        int[] flushes = {0};
+        OutputStream out = new FilterOutputStream(new ByteArrayOutputStream()) {
+            @Override
+            public void flush() throws IOException {
+                flushes[0]++;
+                super.flush();
+            }
+        };
+        exportService.export(null, null, null, null, null, null, null, null, null, null, null, PlayerOrder.ID, null, null,
+                ExportFormat.NDJSON, out);
+
+        int players = testsHelper.getAllPlayers().size();
+        assertTrue("Выгрузка должна сбрасывать поток раз в fetch-size строк, а не после каждой: " + flushes[0],
+                flushes[0] <= players / 4 + 2);
+    }
+
+    private String stream(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
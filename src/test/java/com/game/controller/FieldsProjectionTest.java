@@ -0,0 +1,107 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.metrics.SqlCapture;
+import org.junit.Test;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.list.max-page-size=10")
+public class FieldsProjectionTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<Map<String, Object>>> typeReference = new TypeReference<List<Map<String, Object>>>() {
+    };
+
+    //test1
+    @Test
+    public void fieldsMatchFullPlayers() throws Exception {
+        List<Map<String, Object>> full = list("/rest/players?race=HUMAN&order=LEVEL&pageNumber=1&pageSize=5");
+        List<Map<String, Object>> actual = list("/rest/players?race=HUMAN&order=LEVEL&pageNumber=1&pageSize=5&fields=id,name,level");
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметром fields.",
+                only(full, "id", "name", "level"), actual);
+        for (Map<String, Object> row : actual) {
+            assertEquals("Лишние поля в ответе GET /rest/players с параметром fields.",
+                    Arrays.asList("id", "name", "level"), new ArrayList<>(row.keySet()));
+        }
+    }
+
+    //test2
+    @Test
+    public void fieldsSelectOnlyThoseColumns() throws Exception {
+        try (SqlCapture capture = SqlCapture.start()) {
+            list("/rest/players?banned=true&fields=id,experience");
+
+            assertEquals("GET /rest/players с параметром fields должен выполнять один запрос: " + capture.getStatements(), 1, capture.count());
+            String sql = capture.getStatements().get(0);
+            assertTrue("Запрос с параметром fields выбирает лишние колонки: " + sql,
+                    sql.contains("experience") && !sql.contains("title") && !sql.contains("untilNextLevel"));
+        }
+    }
+
+    //test3
+    @Test
+    public void unknownFieldIsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/players?fields=id,password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test4
+    @Test
+    public void oversizePageStreamsOnlyFields() throws Exception {
+        List<Map<String, Object>> full = list("/rest/players?order=NAME&pageSize=20");
+        List<Map<String, Object>> actual = list("/rest/players?order=NAME&pageSize=20&fields=birthday,banned");
+
+        assertEquals("Возвращается не правильный результат при потоковой выдаче GET /rest/players с параметром fields.",
+                only(full, "birthday", "banned"), actual);
+    }
+
+    //test5
+    @Test
+    public void cursorPageKeepsNextCursorWithFields() throws Exception {
+        String nextCursor = mockMvc.perform(get("/rest/players?cursor=&pageSize=4&fields=id"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(DevRestApi.NEXT_CURSOR_HEADER);
+        List<Map<String, Object>> actual = list("/rest/players?pageSize=4&fields=id&cursor=" + nextCursor);
+
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players с параметрами cursor и fields.",
+                only(list("/rest/players?pageNumber=1&pageSize=4"), "id"), actual);
+    }
+
+    // oversize pages are streamed asynchronously
+    private List<Map<String, Object>> list(String url) throws Exception {
+        MvcResult result = mockMvc.perform(get(url)).andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            result = mockMvc.perform(asyncDispatch(result)).andReturn();
+        }
+        assertEquals("Неверный статус ответа GET " + url, 200, result.getResponse().getStatus());
+        String contentAsString = result.getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, typeReference);
+    }
+
+    private static List<Map<String, Object>> only(List<Map<String, Object>> rows, String... fields) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Map<String, Object> row : rows) {
+            Map<String, Object> projected = new LinkedHashMap<>();
+            for (String field : fields) {
+                projected.put(field, row.get(field));
+            }
+            result.add(projected);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,71 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPageTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void getPageWithoutFiltersReturnsFirstPageAndTotal() throws Exception {
+        JsonNode page = getPage("/rest/players/page");
+
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByPage(0, 3, testsHelper.getAllPlayers());
+        assertEquals("Возвращается не правильный список при запросе GET /rest/players/page.", expected, players(page));
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page.",
+                testsHelper.getAllPlayers().size(), page.get("count").asInt());
+    }
+
+    //test2
+    @Test
+    public void getPageWithFiltersRaceProfessionShortPage() throws Exception {
+        JsonNode page = getPage("/rest/players/page?race=TROLL&profession=WARRIOR&pageSize=10");
+
+        List<PlayerInfoTest> filtered = testsHelper.getPlayerInfosByRace(Race.TROLL,
+                testsHelper.getPlayerInfosByProfession(Profession.WARRIOR, testsHelper.getAllPlayers()));
+        assertEquals("Возвращается не правильный список при запросе GET /rest/players/page с параметрами race и profession.",
+                testsHelper.getPlayerInfosByPage(0, 10, filtered), players(page));
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page с параметрами race и profession.",
+                filtered.size(), page.get("count").asInt());
+    }
+
+    //test3
+    @Test
+    public void getPageBeyondLastPageReturnsEmptyListAndTotal() throws Exception {
+        JsonNode page = getPage("/rest/players/page?name=ра&pageNumber=20");
+
+        List<PlayerInfoTest> filtered = testsHelper.getPlayerInfosByName("ра", testsHelper.getAllPlayers());
+        assertEquals("Возвращается не пустой список при запросе GET /rest/players/page за пределами последней страницы.",
+                0, players(page).size());
+        assertEquals("Возвращается не правильное количество при запросе GET /rest/players/page за пределами последней страницы.",
+                filtered.size(), page.get("count").asInt());
+    }
+
+    private JsonNode getPage(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private List<PlayerInfoTest> players(JsonNode page) throws Exception {
+        return mapper.readValue(mapper.treeAsTokens(page.get("players")), typeReference);
+    }
+}
@@ -0,0 +1,100 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class GetPlayersCursorTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void cursorWalkByIdReturnsAllPlayers() throws Exception {
+        List<PlayerInfoTest> actual = walk("/rest/players?pageSize=7");
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers();
+
+        assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players по cursor.", expected, actual);
+    }
+
+    //test2
+    @Test
+    public void cursorWalkByLevelWithFilterRace() throws Exception {
+        List<PlayerInfoTest> actual = walk("/rest/players?race=ORC&order=LEVEL&pageSize=2");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.ORC, testsHelper.getAllPlayers())
+                .stream()
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.level).thenComparing(p -> p.id))
+                .collect(Collectors.toList());
+
+        assertEquals("Возвращается не правильный результат при постраничном обходе GET /rest/players по cursor с параметрами race и order.", expected, actual);
+    }
+
+    //test3
+    @Test
+    public void cursorWalkByNameMatchesOffsetPage() throws Exception {
+        MockHttpServletResponse first = mockMvc.perform(get("/rest/players?order=NAME&pageSize=5&cursor="))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        String cursor = first.getHeader(DevRestApi.NEXT_CURSOR_HEADER);
+
+        String seek = mockMvc.perform(get("/rest/players?order=NAME&pageSize=5&cursor=" + cursor))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        List<PlayerInfoTest> actual = mapper.readValue(seek, typeReference);
+        List<PlayerInfoTest> expected = testsHelper.getAllPlayers()
+                .stream()
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.name).thenComparing(p -> p.id))
+                .skip(5)
+                .limit(5)
+                .collect(Collectors.toList());
+
+        assertEquals("Возвращается не правильный результат при запросе второй страницы GET /rest/players по cursor.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void cursorWithBrokenTokenReturnsBadRequest() throws Exception {
+        mockMvc.perform(get("/rest/players?cursor=%21%21%21"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test5
+    @Test
+    public void cursorFromAnotherOrderReturnsBadRequest() throws Exception {
+        String cursor = mockMvc.perform(get("/rest/players?order=LEVEL&cursor="))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(DevRestApi.NEXT_CURSOR_HEADER);
+
+        mockMvc.perform(get("/rest/players?order=NAME&cursor=" + cursor))
+                .andExpect(status().isBadRequest());
+    }
+
+    private List<PlayerInfoTest> walk(String url) throws Exception {
+        List<PlayerInfoTest> players = new ArrayList<>();
+        String cursor = "";
+        while (cursor != null) {
+            MockHttpServletResponse response = mockMvc.perform(get(url + "&cursor=" + cursor))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse();
+            players.addAll(mapper.readValue(response.getContentAsString(), typeReference));
+            cursor = response.getHeader(DevRestApi.NEXT_CURSOR_HEADER);
+        }
+        return players;
+    }
+}
@@ -0,0 +1,91 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.import.batch-size=2")
+public class ImportPlayersTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void importNdjsonWithInvalidLines() throws Exception {
+        String body = TestsHelper.NORMAL_JSON + "\n"
+                + TestsHelper.BANNED_TRUE_JSON + "\n"
+                + "\n"
+                + TestsHelper.NEGATIVE_EXPERIENCE_JSON + "\n"
+                + "{\"name\": \n"
+                + TestsHelper.NORMAL_JSON + "\n";
+
+        JsonNode result = importBody("/rest/players/import", MediaType.parseMediaType("application/x-ndjson"), body);
+
+        assertEquals("Не правильное количество прочитанных строк при POST /rest/players/import.", 6, result.get("lines").asInt());
+        assertEquals("Не правильное количество импортированных игроков.", 3, result.get("imported").asInt());
+        assertEquals("Не правильное количество отклоненных строк.", 2, result.get("rejected").asInt());
+        assertEquals("Импорт должен сохраняться пакетами.", 2, result.get("batches").asInt());
+        assertEquals("Не правильный номер строки с ошибкой.", 4, result.get("errors").get(0).get("line").asInt());
+        assertEquals("Не правильный номер строки с ошибкой.", 5, result.get("errors").get(1).get("line").asInt());
+        assertEquals("Импортированные игроки не сохранены в базе.", 43, count());
+    }
+
+    //test2
+    @Test
+    public void importCsvDerivesLevel() throws Exception {
+        String body = "id,name,title,race,profession,birthday,banned,experience,level,untilNextLevel\n"
+                + "7,Амарылис,\"Прозелит, \"\"младший\"\"\",HUMAN,CLERIC,988059600000,false,63986,1,1\n"
+                + "8,Второй,Титул,ELF,WARRIOR,988059600000,,63986,,\n";
+
+        JsonNode result = importBody("/rest/players/import?format=CSV", MediaType.parseMediaType("text/csv"), body);
+
+        assertEquals("Не правильное количество импортированных игроков из CSV.", 2, result.get("imported").asInt());
+        assertEquals("Игрок без banned должен быть импортирован.", 0, result.get("rejected").asInt());
+
+        String contentAsString = mockMvc.perform(get("/rest/players/41"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+        assertEquals("Название импортировано из CSV не правильно.", "Прозелит, \"младший\"", actual.title);
+        assertEquals("Уровень должен вычисляться при импорте, а не браться из CSV.", 35, actual.level);
+        assertEquals("Опыт до следующего уровня должен вычисляться при импорте.", 2614, actual.untilNextLevel);
+        assertEquals("Раса импортирована из CSV не правильно.", Race.HUMAN, actual.race);
+        assertEquals("Профессия импортирована из CSV не правильно.", Profession.CLERIC, actual.profession);
+    }
+
+    //test3
+    @Test
+    public void importJsonArrayIsRejected() throws Exception {
+        mockMvc.perform(post("/rest/players/import?format=JSON")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[]"))
+                .andExpect(status().isBadRequest());
+    }
+
+    private JsonNode importBody(String url, MediaType contentType, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post(url)
+                .contentType(contentType)
+                .content(body.getBytes("UTF-8")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private int count() throws Exception {
+        String contentAsString = mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(contentAsString);
+    }
+}
@@ -0,0 +1,75 @@
+package com.game.controller;
+
+import com.game.metrics.MetricsInterceptor;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class MetricsTest extends AbstractTest {
+
+    //test1
+    @Test
+    public void serverTimingHeaderOnJsonResponse() throws Exception {
+        String serverTiming = mockMvc.perform(get("/rest/players?race=HUMAN"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader("Server-Timing");
+
+        assertTrue("Нет заголовка Server-Timing при запросе GET /rest/players.", serverTiming != null);
+        assertTrue("Заголовок Server-Timing должен содержать db, serialize и total: " + serverTiming,
+                serverTiming.matches("db;dur=\\d+\\.\\d{3}, serialize;dur=\\d+\\.\\d{3}, total;dur=\\d+\\.\\d{3}"));
+    }
+
+    //test2
+    @Test
+    public void metricsEndpointReportsEndpointsStatusesAndRepositoryCalls() throws Exception {
+        mockMvc.perform(get("/rest/players/1")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/1000")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/rest/players/0")).andExpect(status().isBadRequest());
+
+        String metrics = mockMvc.perform(get("/rest/admin/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        assertTrue("Нет гистограммы задержки для GET /rest/players/{id}.",
+                metrics.contains("http_server_requests_seconds{endpoint=\"GET /rest/players/{id}\",quantile=\"0.99\"}"));
+        assertTrue("Нет счетчика ответов 404 для GET /rest/players/{id}.",
+                metrics.contains("http_server_responses_total{endpoint=\"GET /rest/players/{id}\",status=\"404\"}"));
+        assertTrue("Нет счетчика ответов 400 для GET /rest/players/{id}.",
+                metrics.contains("http_server_responses_total{endpoint=\"GET /rest/players/{id}\",status=\"400\"}"));
+        assertTrue("Нет гистограммы времени вызовов репозитория.",
+                metrics.contains("repository_call_seconds_count{method=\"getById\"}"));
+        assertTrue("Нет гистограммы времени сериализации.", metrics.contains("json_serialization_seconds_count "));
+    }
+
+    //test3
+    @Test
+    public void metricsEndpointIsPlainText() throws Exception {
+        String contentType = mockMvc.perform(get("/rest/admin/metrics"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentType();
+
+        assertEquals("Метрики должны отдаваться в текстовом формате Prometheus.", true, contentType.startsWith("text/plain"));
+    }
+
+    //test4
+    @Test
+    public void serverTimingHeaderWithoutBody() throws Exception {
+        String notFound = mockMvc.perform(get("/rest/players/1000"))
+                .andExpect(status().isNotFound())
+                .andReturn().getResponse().getHeader(MetricsInterceptor.SERVER_TIMING_HEADER);
+        String noContent = mockMvc.perform(post("/rest/players/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(DevRestApi.PREFER_HEADER, DevRestApi.RETURN_MINIMAL)
+                .content("{\"title\": \"Новый титул\"}"))
+                .andExpect(status().isNoContent())
+                .andReturn().getResponse().getHeader(MetricsInterceptor.SERVER_TIMING_HEADER);
+
+        assertTrue("Нет заголовка Server-Timing в ответе 404: " + notFound, notFound != null && notFound.contains("total;dur="));
+        assertTrue("Нет заголовка Server-Timing в ответе 204: " + noContent, noContent != null && noContent.contains("total;dur="));
+    }
+}
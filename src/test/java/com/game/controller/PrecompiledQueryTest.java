@@ -0,0 +1,107 @@
+package com.game.controller;
+
+import com.game.dto.PlayersPage;
+import com.game.entity.Player;
+import com.game.entity.Profession;
+import com.game.entity.Race;
+import com.game.repository.CustomRepo;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+
+public class PrecompiledQueryTest extends AbstractTest {
+
+    // name, title, race, profession, after, before, banned, minExperience, maxExperience, minLevel, maxLevel
+    private static final Object[][] FILTERS = {
+            {null, null, null, null, null, null, null, null, null, null, null},
+            {"ри", null, null, null, null, null, null, null, null, null, null},
+            {null, "ульф", Race.HUMAN, null, null, null, null, null, null, null, null},
+            {null, null, Race.DWARF, Profession.CLERIC, null, null, true, null, null, null, null},
+            {null, null, null, null, 1104530400000L, 1230760800000L, null, 1000, 500000, null, null},
+            {"а", null, null, Profession.WARRIOR, null, null, false, null, null, 5, 40},
+            {"ар", "а", Race.ELF, Profession.ROGUE, 946684800000L, 32503680000000L, false, 0, 10000000, 0, 100}
+    };
+
+    @Autowired
+    @Qualifier("customRepoImpl")
+    private CustomRepo repository;
+
+    @After
+    public void restore() {
+        setPrecompiled(true);
+    }
+
+    //test1
+    @Test
+    public void listAndCountMatchCriteriaQueries() {
+        for (Object[] filter : FILTERS) {
+            for (PlayerOrder order : PlayerOrder.values()) {
+                for (int pageNumber = 0; pageNumber < 3; pageNumber++) {
+                    setPrecompiled(false);
+                    List<Long> expected = ids(list(filter, order, pageNumber));
+                    setPrecompiled(true);
+                    List<Long> actual = ids(list(filter, order, pageNumber));
+
+                    assertEquals("Предкомпилированный запрос возвращает другой список для " + Arrays.toString(filter) + " " + order + " " + pageNumber,
+                            expected, actual);
+                }
+            }
+            setPrecompiled(false);
+            Long expected = count(filter);
+            setPrecompiled(true);
+
+            assertEquals("Предкомпилированный запрос возвращает другое количество для " + Arrays.toString(filter), expected, count(filter));
+        }
+    }
+
+    //test2
+    @Test
+    public void pageMatchesCriteriaQueries() {
+        for (Object[] filter : FILTERS) {
+            for (int pageNumber = 0; pageNumber < 4; pageNumber++) {
+                setPrecompiled(false);
+                PlayersPage expected = page(filter, pageNumber);
+                setPrecompiled(true);
+                PlayersPage actual = page(filter, pageNumber);
+
+                assertEquals("Предкомпилированный запрос возвращает другую страницу для " + Arrays.toString(filter) + " " + pageNumber,
+                        ids(expected.getPlayers()), ids(actual.getPlayers()));
+                assertEquals("Предкомпилированный запрос возвращает другое общее количество для " + Arrays.toString(filter) + " " + pageNumber,
+                        expected.getCount(), actual.getCount());
+            }
+        }
+    }
+
+    private List<Player> list(Object[] f, PlayerOrder order, int pageNumber) {
+        return repository.getPlayers((String) f[0], (String) f[1], (Race) f[2], (Profession) f[3], (Long) f[4], (Long) f[5],
+                (Boolean) f[6], (Integer) f[7], (Integer) f[8], (Integer) f[9], (Integer) f[10], order, pageNumber, 5);
+    }
+
+    private Long count(Object[] f) {
+        return repository.getPlayersCount((String) f[0], (String) f[1], (Race) f[2], (Profession) f[3], (Long) f[4], (Long) f[5],
+                (Boolean) f[6], (Integer) f[7], (Integer) f[8], (Integer) f[9], (Integer) f[10]);
+    }
+
+    private PlayersPage page(Object[] f, int pageNumber) {
+        return repository.getPlayersPage((String) f[0], (String) f[1], (Race) f[2], (Profession) f[3], (Long) f[4], (Long) f[5],
+                (Boolean) f[6], (Integer) f[7], (Integer) f[8], (Integer) f[9], (Integer) f[10], PlayerOrder.LEVEL, pageNumber, 4);
+    }
+
+    private static List<Long> ids(List<Player> players) {
+        return players.stream().map(Player::getId).collect(Collectors.toList());
+    }
+
+    private void setPrecompiled(boolean precompiled) {
+        Object target = AopTestUtils.getUltimateTargetObject(repository);
+        ReflectionTestUtils.setField(target, "precompiled", precompiled);
+    }
+}
@@ -0,0 +1,82 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.service.PlayerQueryCache;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.cache.enabled=true")
+public class QueryCacheTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+
+    @Autowired
+    private PlayerQueryCache queryCache;
+
+    @Before
+    public void clearCache() {
+        queryCache.clear();
+    }
+
+    //test1
+    @Test
+    public void repeatedCountIsServedFromCache() throws Exception {
+        long hitsBefore = (Long) queryCache.getStats().get("hits");
+
+        int first = count("/rest/players/count?race=ORC&banned=false");
+        int second = count("/rest/players/count?race=ORC&banned=false");
+
+        assertEquals("Повторный запрос GET /rest/players/count возвращает другой результат.", first, second);
+        assertEquals("Повторный запрос GET /rest/players/count не попал в кэш.", hitsBefore + 1, queryCache.getStats().get("hits"));
+    }
+
+    //test2
+    @Test
+    public void createInvalidatesCachedCount() throws Exception {
+        int before = count("/rest/players/count?race=HUMAN");
+
+        mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.NORMAL_JSON))
+                .andExpect(status().isOk());
+
+        assertEquals("После создания игрока GET /rest/players/count возвращает устаревший результат.", before + 1, count("/rest/players/count?race=HUMAN"));
+    }
+
+    //test3
+    @Test
+    public void deleteInvalidatesCachedCount() throws Exception {
+        int before = count("/rest/players/count");
+        assertEquals("Возвращается не правильный результат при запросе GET /rest/players/count.", testsHelper.getAllPlayers().size(), before);
+
+        mockMvc.perform(delete("/rest/players/1"))
+                .andExpect(status().isOk());
+
+        assertEquals("После удаления игрока GET /rest/players/count возвращает устаревший результат.", before - 1, count("/rest/players/count"));
+    }
+
+    //test4
+    @Test
+    public void cacheStatsAreExposed() throws Exception {
+        count("/rest/players/count?profession=ROGUE");
+
+        mockMvc.perform(get("/rest/admin/cache/queries"))
+                .andExpect(status().isOk());
+    }
+
+    private int count(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(contentAsString);
+    }
+}
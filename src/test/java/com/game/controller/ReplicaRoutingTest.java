@@ -0,0 +1,165 @@
+package com.game.controller;
+
+import com.game.controller.utils.TestsHelper;
+import com.game.datasource.ReadYourWritesInterceptor;
+import com.game.datasource.ReplicaRoutingDataSource;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType.H2;
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// closing the context resets the process-wide read-your-writes window for the test classes that follow
+@DirtiesContext
+@TestPropertySource(properties = {"db.dev.replicas=2", "db.replicas.read-your-writes-ms=60000"})
+public class ReplicaRoutingTest extends AbstractTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    //test1
+    @Test
+    public void readsGoToReplicas() throws Exception {
+        createPlayer();
+
+        mockMvc.perform(get("/rest/players/count"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("40"));
+        DataSource primary = dataSource.unwrap(ReplicaRoutingDataSource.class).getPrimary();
+        assertEquals("Запись должна выполняться на основной базе.",
+                41, new JdbcTemplate(primary).queryForObject("select count(*) from player", Integer.class));
+    }
+
+    //test2
+    @Test
+    public void readYourWritesAfterUpdate() throws Exception {
+        Cookie cookie = createPlayer();
+
+        assertNotNull("POST /rest/players/ должен выставлять cookie " + ReadYourWritesInterceptor.COOKIE_NAME, cookie);
+        mockMvc.perform(get("/rest/players/count").cookie(cookie))
+                .andExpect(status().isOk())
+                .andExpect(content().string("41"));
+    }
+
+    //test3
+    @Test
+    public void replicaDownFallsBackToPrimary() throws Exception {
+        EmbeddedDatabase primary = database();
+        EmbeddedDatabase replicaDatabase = database();
+        new JdbcTemplate(primary).update("delete from player where id = 1");
+        StoppableDataSource replica = new StoppableDataSource(replicaDatabase);
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica);
+        try (ReplicaRoutingDataSource routing = ReplicaRoutingDataSource.create(primary, replicas, "", 5, 60000, 0)) {
+            assertEquals("Чтение должно выполняться на реплике.", 40, readCount(routing));
+
+            replica.stopped = true;
+            assertEquals("Без доступной реплики чтение должно выполняться на основной базе.", 39, readCount(routing));
+            routing.checkReplicas();
+            Map<?, ?> stats = (Map<?, ?>) ((List<?>) routing.getStats().get("replicas")).get(0);
+            assertEquals("Недоступная реплика должна быть отмечена в статистике.", false, stats.get("up"));
+        } finally {
+            replicaDatabase.shutdown();
+        }
+    }
+
+    //test4
+    @Test
+    public void laggingReplicaIsNotUsed() throws Exception {
+        EmbeddedDatabase primary = database();
+        EmbeddedDatabase replica = database();
+        new JdbcTemplate(primary).update("delete from player where id = 1");
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica);
+        try (ReplicaRoutingDataSource routing = ReplicaRoutingDataSource.create(primary, replicas, "select 30", 10, 60000, 0)) {
+            assertEquals("Отстающая реплика не должна использоваться для чтения.", 39, readCount(routing));
+            Map<?, ?> stats = (Map<?, ?>) ((List<?>) routing.getStats().get("replicas")).get(0);
+            assertEquals("Отставание реплики должно быть в статистике.", 30L, stats.get("lagSeconds"));
+            assertEquals("Отстающая реплика не должна считаться доступной.", false, stats.get("usable"));
+        }
+    }
+
+    //test5
+    @Test
+    public void forgedCookieDoesNotPinPrimary() throws Exception {
+        createPlayer();
+
+        mockMvc.perform(get("/rest/players/count")
+                .cookie(new Cookie(ReadYourWritesInterceptor.COOKIE_NAME, String.valueOf(Long.MAX_VALUE))))
+                .andExpect(status().isOk())
+                .andExpect(content().string("40"));
+    }
+
+    //test6
+    @Test
+    public void connectionWithCredentialsComesFromPrimary() throws Exception {
+        createPlayer();
+
+        try (Connection connection = dataSource.getConnection("sa", "")) {
+            assertEquals("Соединение с явными учетными данными должно открываться на основной базе.",
+                    41, new JdbcTemplate(new SingleConnectionDataSource(connection, true)).queryForObject("select count(*) from player", Integer.class));
+        }
+    }
+
+    private Cookie createPlayer() throws Exception {
+        return mockMvc.perform(post("/rest/players/")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(TestsHelper.BANNED_TRUE_JSON))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getCookie(ReadYourWritesInterceptor.COOKIE_NAME);
+    }
+
+    private static EmbeddedDatabase database() {
+        return new EmbeddedDatabaseBuilder()
+                .generateUniqueName(true)
+                .setType(H2)
+                .setScriptEncoding("UTF-8")
+                .addScript("test.sql")
+                .build();
+    }
+
+    private static final class StoppableDataSource extends DelegatingDataSource {
+        private volatile boolean stopped;
+
+        private StoppableDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (stopped) {
+                throw new SQLException("Connection refused");
+            }
+            return super.getConnection();
+        }
+    }
+
+    private static int readCount(DataSource dataSource) {
+        TransactionTemplate transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transaction.setReadOnly(true);
+        return transaction.execute(status -> new JdbcTemplate(dataSource).queryForObject("select count(*) from player", Integer.class));
+    }
+}
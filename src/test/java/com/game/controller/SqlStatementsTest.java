@@ -0,0 +1,90 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.metrics.SqlCapture;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.util.AssertionErrors.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+public class SqlStatementsTest extends AbstractTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    //test1
+    @Test
+    public void getPlayerByIdIsOneSelect() throws Exception {
+        try (SqlCapture capture = SqlCapture.start()) {
+            mockMvc.perform(get("/rest/players/7")).andExpect(status().isOk());
+
+            assertEquals("GET /rest/players/{id} должен выполнять один запрос: " + capture.getStatements(), 1, capture.count());
+        }
+    }
+
+    //test2
+    @Test
+    public void updateWithEmptyBodyFetchesPlayerOnce() throws Exception {
+        try (SqlCapture capture = SqlCapture.start()) {
+            mockMvc.perform(post("/rest/players/7")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{}"))
+                    .andExpect(status().isOk());
+
+            assertEquals("POST /rest/players/{id} с пустым телом должен читать игрока один раз: " + capture.getStatements(), 1, capture.count());
+        }
+    }
+
+    //test3
+    @Test
+    public void updateIssuesSingleUpdateStatement() throws Exception {
+        try (SqlCapture capture = SqlCapture.start()) {
+            mockMvc.perform(post("/rest/players/7")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content("{\"title\": \"Новый титул\"}"))
+                    .andExpect(status().isOk());
+
+            assertEquals("POST /rest/players/{id} должен выполнять один UPDATE: " + capture.getStatements(), 1L, capture.count("update"));
+            assertTrue("POST /rest/players/{id} выполняет лишние запросы: " + capture.getStatements(), capture.count() <= 2);
+        }
+    }
+
+    //test4
+    @Test
+    public void adminEndpointReportsNormalizedShapes() throws Exception {
+        mockMvc.perform(post("/rest/admin/sql/reset")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/3")).andExpect(status().isOk());
+        mockMvc.perform(get("/rest/players/4")).andExpect(status().isOk());
+
+        String content = mockMvc.perform(get("/rest/admin/sql"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        JsonNode stats = mapper.readTree(content);
+
+        assertEquals("Два запроса одного вида должны попадать в одну запись.", 1, stats.get("shapes").asInt());
+        JsonNode shape = stats.get("top").get(0);
+        assertEquals("Неверное число вызовов для формы запроса: " + shape, 2, shape.get("calls").asInt());
+        assertEquals("Неверное число строк для формы запроса: " + shape, 2, shape.get("rows").asInt());
+        assertTrue("Форма запроса должна быть параметризована: " + shape.get("sql").asText(),
+                shape.get("sql").asText().endsWith(".id=?"));
+    }
+
+    //test5
+    @Test
+    public void minimalUpdateIsOneStatement() throws Exception {
+        try (SqlCapture capture = SqlCapture.start()) {
+            mockMvc.perform(post("/rest/players/7")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .header(DevRestApi.PREFER_HEADER, DevRestApi.RETURN_MINIMAL)
+                    .content("{\"experience\": 5000, \"banned\": true}"))
+                    .andExpect(status().isNoContent());
+
+            assertEquals("POST /rest/players/{id} с Prefer: return=minimal должен выполнять только UPDATE: " + capture.getStatements(), 1, capture.count());
+            assertEquals("POST /rest/players/{id} с Prefer: return=minimal должен выполнять только UPDATE: " + capture.getStatements(), 1L, capture.count("update"));
+        }
+    }
+}
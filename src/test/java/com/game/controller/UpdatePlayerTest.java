@@ -12,7 +12,9 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 
 import static org.springframework.test.util.AssertionErrors.assertEquals;
 import static org.springframework.test.util.AssertionErrors.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 public class UpdatePlayerTest extends AbstractTest {
@@ -183,4 +185,31 @@ public class UpdatePlayerTest extends AbstractTest {
 
         assertEquals("При запросе POST /rest/players/{id} корабль должен обновляться и рейтинг пересчитываться", expected, actual);
     }
-}
\ No newline at end of file
+
+    //test12
+    @Test
+    public void updatePlayerReturnMinimalTest() throws Exception {
+        PlayerInfoTest playerInfoTest = testsHelper.getPlayerInfosById(14);
+
+        String newName = "TestName";
+        boolean newBanned = false;
+        int newExperience = 2500;
+
+        PlayerInfoTest expected = new PlayerInfoTest(playerInfoTest.id, newName, playerInfoTest.title, playerInfoTest.race, playerInfoTest.profession,
+                playerInfoTest.birthday, newBanned, newExperience, 6, 300);
+
+        mockMvc.perform(MockMvcRequestBuilders.post("/rest/players/" + playerInfoTest.id)
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(DevRestApi.PREFER_HEADER, DevRestApi.RETURN_MINIMAL)
+                .content(String.format(TestsHelper.JSON_SKELETON, newName, newBanned, newExperience)))
+                .andExpect(status().isNoContent())
+                .andExpect(content().string(""));
+
+        String contentAsString = mockMvc.perform(get("/rest/players/" + playerInfoTest.id))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        PlayerInfoTest actual = mapper.readValue(contentAsString, PlayerInfoTest.class);
+
+        assertEquals("При запросе POST /rest/players/{id} с Prefer: return=minimal игрок должен обновляться, а уровень пересчитываться", expected, actual);
+    }
+}
@@ -0,0 +1,150 @@
+package com.game.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.game.controller.utils.PlayerInfoTest;
+import com.game.controller.utils.TestsHelper;
+import com.game.entity.Race;
+import org.junit.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.springframework.test.util.AssertionErrors.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@TestPropertySource(properties = "player.bulk-update.chunk-size=7")
+public class UpdatePlayersByFilterTest extends AbstractTest {
+
+    private final TestsHelper testsHelper = new TestsHelper();
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final TypeReference<List<PlayerInfoTest>> typeReference = new TypeReference<List<PlayerInfoTest>>() {
+    };
+
+    //test1
+    @Test
+    public void banByRaceAndMaxLevel() throws Exception {
+        List<PlayerInfoTest> matching = testsHelper.getPlayerInfosByMaxLevel(20,
+                testsHelper.getPlayerInfosByRace(Race.HUMAN, testsHelper.getAllPlayers()));
+
+        JsonNode result = update("/rest/players/update?race=HUMAN&maxLevel=20", "{\"banned\": true}");
+
+        assertEquals("Возвращается не правильное количество измененных игроков при запросе POST /rest/players/update.",
+                matching.size(), result.get("updated").asInt());
+        assertEquals("Игроки, подходящие под фильтр, не забанены после POST /rest/players/update.",
+                matching.size(), count("/rest/players/count?race=HUMAN&maxLevel=20&banned=true"));
+    }
+
+    //test2
+    @Test
+    public void addExperienceRecomputesLevelInSql() throws Exception {
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers())
+                .stream()
+                .map(p -> withExperience(p, Math.min(p.experience + 100000, 10000000)))
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.id))
+                .collect(Collectors.toList());
+
+        JsonNode result = update("/rest/players/update?race=ELF", "{\"addExperience\": 100000}");
+
+        assertEquals("Возвращается не правильное количество измененных игроков при запросе POST /rest/players/update.",
+                expected.size(), result.get("updated").asInt());
+        assertEquals("Опыт, уровень или количество опыта до следующего уровня пересчитаны не правильно.",
+                expected, list("/rest/players?race=ELF&pageSize=100"));
+    }
+
+    //test3
+    @Test
+    public void addNegativeExperienceIsClampedAtZero() throws Exception {
+        update("/rest/players/update?maxExperience=100000", "{\"addExperience\": -10000000, \"title\": \"Новичок\"}");
+
+        List<PlayerInfoTest> actual = list("/rest/players?maxExperience=100000&pageSize=100");
+        List<PlayerInfoTest> expected = testsHelper.getPlayerInfosByMaxExperience(100000, testsHelper.getAllPlayers())
+                .stream()
+                .map(p -> withExperience(p, 0))
+                .peek(p -> p.title = "Новичок")
+                .sorted(Comparator.comparing((PlayerInfoTest p) -> p.id))
+                .collect(Collectors.toList());
+        assertEquals("Опыт должен ограничиваться нулем при POST /rest/players/update.", expected, actual);
+    }
+
+    //test4
+    @Test
+    public void updateIsSplitIntoIdChunks() throws Exception {
+        JsonNode result = update("/rest/players/update", "{\"title\": \"Всем\"}");
+
+        assertEquals("Обновлены не все игроки.", testsHelper.getAllPlayers().size(), result.get("updated").asInt());
+        assertEquals("Обновление должно выполняться порциями по диапазонам id.", 6, result.get("chunks").asInt());
+    }
+
+    //test5
+    @Test
+    public void emptyOrInvalidMutationIsRejected() throws Exception {
+        mockMvc.perform(post("/rest/players/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 10, \"addExperience\": 10}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"experience\": 10000001}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"addExperience\": 10000001}"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/rest/players/update")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"addExperience\": -10000001}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    //test6
+    @Test
+    public void sparseMatchesFillWholeChunks() throws Exception {
+        int elves = testsHelper.getPlayerInfosByRace(Race.ELF, testsHelper.getAllPlayers()).size();
+
+        JsonNode result = update("/rest/players/update?race=ELF", "{\"title\": \"Эльф\"}");
+
+        assertEquals("Обновлены не все подходящие игроки.", elves, result.get("updated").asInt());
+        assertEquals("Порция должна содержать chunk-size подходящих игроков, а не диапазон id: " + result,
+                (elves + 6) / 7, result.get("chunks").asInt());
+    }
+
+    private PlayerInfoTest withExperience(PlayerInfoTest player, int experience) {
+        int level = (int) (Math.sqrt(2500.0 + 200.0 * experience) - 50) / 100;
+        return new PlayerInfoTest(player.id, player.name, player.title, player.race, player.profession, player.birthday,
+                player.banned, experience, level, 50 * (level + 1) * (level + 2) - experience);
+    }
+
+    private JsonNode update(String url, String body) throws Exception {
+        String contentAsString = mockMvc.perform(post(url)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readTree(contentAsString);
+    }
+
+    private int count(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return Integer.parseInt(contentAsString);
+    }
+
+    private List<PlayerInfoTest> list(String url) throws Exception {
+        String contentAsString = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return mapper.readValue(contentAsString, typeReference);
+    }
+}
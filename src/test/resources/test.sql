@@ -1,10 +1,11 @@
 DROP TABLE IF EXISTS player;
+DROP TABLE IF EXISTS player_changes;
 
 CREATE TABLE player
 (
     id             BIGINT(20)  NOT NULL AUTO_INCREMENT,
-    name           VARCHAR(12) NULL,
-    title          VARCHAR(30) NULL,
+    name           VARCHAR_IGNORECASE(12) NULL,
+    title          VARCHAR_IGNORECASE(30) NULL,
     race           VARCHAR(20) NULL,
     profession     VARCHAR(20) NULL,
     birthday       DATE        NULL,
@@ -12,9 +13,19 @@ CREATE TABLE player
     experience     INT(10)     NULL,
     level          INT(3)      NULL,
     untilNextLevel INT(10)     NULL,
+    version        BIGINT      NOT NULL DEFAULT 0,
     PRIMARY KEY (id)
 );
 
+CREATE TABLE player_changes
+(
+    id      INT    NOT NULL,
+    counter BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT INTO player_changes(id, counter) VALUES (1, 0);
+
 INSERT INTO player(name, title, race, profession, birthday, banned, experience, level, untilNextLevel)
 VALUES ('Ниус', 'Приходящий Без Шума', 'HOBBIT', 'ROGUE', '2010-10-12', false, 58347, 33, 1153)
      , ('Никрашш', 'НайтВульф', 'ORC', 'WARLOCK', '2010-02-14', false, 174403, 58, 2597)